@@ -0,0 +1,58 @@
+package microabl.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import microabl.Agent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * Measures the throughput and latency of Agent.update on synthetic libraries (see SyntheticLibraries). 
+ * 
+ * The agent is run until its tree is fully expanded before measurement starts, so each invocation
+ * measures a decision cycle of an agent in a steady state. 
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentUpdateBenchmark {
+
+	/** the shape of the behavior library */ 
+	@Param({ "deepSequential", "wideParallel", "spawnRoots" })
+	public String shape;
+
+	/** the depth or width of the behavior library */ 
+	@Param({ "10", "100", "1000" })
+	public int size;
+
+	/** the agent being updated */ 
+	private Agent agent; 
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		agent = new Agent(SyntheticLibraries.create(shape, size), new ImmediateActionListener());
+
+		// expand the tree 
+		for (int cycle=0; cycle<4 * size + 10; cycle++) {
+			agent.update();
+		}
+	}
+
+	@Benchmark
+	public boolean update() {
+		return agent.update();
+	}
+}
@@ -0,0 +1,56 @@
+package microabl.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import microabl.wm.AttributeAccessor;
+import microabl.wm.WME;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * Measures WME attribute access by name, and through a previously retrieved accessor. 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeBenchmark {
+
+	/** the attribute to read */ 
+	@Param({ "x", "v", "kind" })
+	public String attribute;
+
+	/** the WME to read from */ 
+	private WME wme; 
+
+	/** accessor for the attribute */ 
+	private AttributeAccessor accessor; 
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		wme = new BenchmarkWME(7, 3.5, "odd");
+		accessor = WME.getAccessor(BenchmarkWME.class, attribute);
+	}
+
+	@Benchmark
+	public Object getAttribute() {
+		return wme.getAttribute(attribute);
+	}
+
+	@Benchmark
+	public Object accessor() {
+		return accessor.get(wme);
+	}
+}
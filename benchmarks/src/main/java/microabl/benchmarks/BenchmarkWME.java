@@ -0,0 +1,35 @@
+package microabl.benchmarks;
+
+import microabl.wm.WME;
+/**
+ * A WME with int, double, and string attributes for benchmarks. 
+ */
+public class BenchmarkWME extends WME {
+
+	/** an int attribute */ 
+	private int x; 
+
+	/** a double attribute */ 
+	private double v; 
+
+	/** a string attribute */ 
+	private String kind; 
+
+	public BenchmarkWME(int x, double v, String kind) {
+		this.x = x;
+		this.v = v;
+		this.kind = kind;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public double getV() {
+		return v;
+	}
+
+	public String getKind() {
+		return kind;
+	}
+}
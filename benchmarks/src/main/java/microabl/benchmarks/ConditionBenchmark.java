@@ -0,0 +1,108 @@
+package microabl.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import microabl.prototype.ConditionPrototype;
+import microabl.prototype.ConditionPrototype.Comparison;
+import microabl.prototype.Variable;
+import microabl.prototype.VariableFrame;
+import microabl.prototype.VariableLayout;
+import microabl.wm.WME;
+import microabl.wm.WorkingMemory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * Measures ConditionPrototype.testWME over working memory populations of different sizes. 
+ * 
+ * The condition tests an int attribute against a bound variable and a string attribute against
+ * a literal, and matches 1 in 100 WMEs (every WME whose int attribute equals the target is odd). 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionBenchmark {
+
+	/** number of WMEs in working memory */ 
+	@Param({ "100", "10000", "100000" })
+	public int wmes;
+
+	/** true if the tested int attribute has a hash index */ 
+	@Param({ "false", "true" })
+	public boolean indexed;
+
+	/** the populated working memory */ 
+	private WorkingMemory workingMemory; 
+
+	/** the condition being tested */ 
+	private ConditionPrototype condition; 
+
+	/** behavior variables for the condition */ 
+	private VariableFrame variables; 
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		workingMemory = new WorkingMemory();
+		for (int index=0; index<wmes; index++) {
+			workingMemory.addWME(new BenchmarkWME(index % 100, index, (index % 2 == 0) ? "even" : "odd"));
+		}
+		
+		if (indexed) {
+			workingMemory.addHashIndex(BenchmarkWME.class, "x");
+		}
+
+		condition = ConditionPrototype.createWMECondition(BenchmarkWME.class)
+				.addTest("x", Comparison.eq, new Variable("target"))
+				.addTest("kind", Comparison.Equals, "odd");
+		
+		VariableLayout layout = new VariableLayout();
+		condition.compile(layout);
+		variables = new VariableFrame(layout);
+		variables.set("target", 41);
+	}
+
+	/**
+	 * Tests every WME of the condition class. 
+	 */
+	@Benchmark
+	public int scan() {
+		int matches = 0; 
+		
+		for (WME wme : workingMemory.getWMEs(BenchmarkWME.class)) {
+			if (condition.testWME(wme, variables)) {
+				matches++;
+			}
+		}
+		
+		return matches;
+	}
+
+	/**
+	 * Tests the candidate WMEs of the condition, which are narrowed by the index when present. 
+	 */
+	@Benchmark
+	public int candidates() {
+		int matches = 0; 
+		
+		for (WME wme : condition.getCandidateWMEs(workingMemory, variables)) {
+			if (condition.testWME(wme, variables)) {
+				matches++;
+			}
+		}
+		
+		return matches;
+	}
+}
@@ -0,0 +1,21 @@
+package microabl.benchmarks;
+
+import microabl.ActionListener;
+import microabl.abt.ActionNode;
+import microabl.abt.ABTNode.NodeStatus;
+/**
+ * Completes actions as soon as they are selected for execution, so that benchmarks measure the
+ * agent rather than an environment. 
+ */
+public class ImmediateActionListener implements ActionListener {
+
+	public void execute(ActionNode action) {
+		action.setStatus(NodeStatus.Success);
+	}
+
+	public void onUpdate(ActionNode action) {
+	}
+
+	public void abort(ActionNode action) {
+	}
+}
@@ -0,0 +1,99 @@
+package microabl.benchmarks;
+
+import java.util.ArrayList;
+
+import microabl.Agent;
+import microabl.prototype.BehaviorPrototype;
+import microabl.prototype.StepPrototype;
+import microabl.prototype.StepPrototype.StepModifier;
+/**
+ * Builds behavior libraries with a given shape and size. Each library runs indefinitely when 
+ * actions complete immediately, so an agent reaches a steady state that can be measured. 
+ * 
+ * The following shapes are supported: 
+ *   deepSequential - a persistent chain of nested sequential behaviors, size levels deep 
+ *   wideParallel - a parallel initial behavior with size persistent subgoals 
+ *   spawnRoots - size root goals created by spawngoal steps, each repeating a subgoal 
+ */
+public class SyntheticLibraries {
+
+	/** the action performed by leaf behaviors */ 
+	public static final String NoopAction = "Noop";
+
+	/**
+	 * Creates a library with the given shape. 
+	 */
+	public static ArrayList<BehaviorPrototype> create(String shape, int size) {
+		if (shape.equals("deepSequential")) {
+			return deepSequential(size);
+		}
+		else if (shape.equals("wideParallel")) {
+			return wideParallel(size);
+		}
+		else if (shape.equals("spawnRoots")) {
+			return spawnRoots(size);
+		}
+		else {
+			throw new IllegalArgumentException("Unknown library shape: " + shape);
+		}
+	}
+
+	/**
+	 * Creates a chain of sequential behaviors, where each behavior pursues the next goal in the
+	 * chain and the last behavior performs an action. 
+	 */
+	public static ArrayList<BehaviorPrototype> deepSequential(int depth) {
+		ArrayList<BehaviorPrototype> library = new ArrayList<BehaviorPrototype>();
+		library.add(sequential(Agent.INITIAL_GOAL, StepPrototype.createSubgoal("chain0").setModifier(StepModifier.Persistent)));
+		
+		for (int level=0; level<depth; level++) {
+			library.add(sequential("chain" + level, StepPrototype.createSubgoal("chain" + (level + 1))));
+		}
+		
+		library.add(sequential("chain" + depth, StepPrototype.createAction(NoopAction)));
+		return library;
+	}
+
+	/**
+	 * Creates a parallel behavior with persistent subgoals, where each subgoal performs an action. 
+	 */
+	public static ArrayList<BehaviorPrototype> wideParallel(int width) {
+		ArrayList<StepPrototype> steps = new ArrayList<StepPrototype>();
+		for (int index=0; index<width; index++) {
+			steps.add(StepPrototype.createSubgoal("leaf").setParameters(new Object[] { index }).setModifier(StepModifier.Persistent));
+		}
+
+		ArrayList<BehaviorPrototype> library = new ArrayList<BehaviorPrototype>();
+		library.add(BehaviorPrototype.createParallel(Agent.INITIAL_GOAL).setSteps(steps));
+		library.add(sequential("leaf", StepPrototype.createAction(NoopAction)).addParameter(Integer.class, "index"));
+		return library;
+	}
+
+	/**
+	 * Creates root goals with spawngoal steps. Each root repeats a subgoal that performs an action. 
+	 */
+	public static ArrayList<BehaviorPrototype> spawnRoots(int roots) {
+		ArrayList<StepPrototype> steps = new ArrayList<StepPrototype>();
+		for (int index=0; index<roots; index++) {
+			steps.add(StepPrototype.createSpawngoal("root").setParameters(new Object[] { index }));
+		}
+
+		ArrayList<BehaviorPrototype> library = new ArrayList<BehaviorPrototype>();
+		library.add(BehaviorPrototype.createParallel(Agent.INITIAL_GOAL).setSteps(steps));
+		library.add(sequential("root", StepPrototype.createSubgoal("work").setModifier(StepModifier.Persistent)).addParameter(Integer.class, "index"));
+		library.add(sequential("work", StepPrototype.createAction(NoopAction)));
+		return library;
+	}
+
+	/**
+	 * Creates a sequential behavior with the given steps. 
+	 */
+	private static BehaviorPrototype sequential(String goalName, StepPrototype... steps) {
+		ArrayList<StepPrototype> stepList = new ArrayList<StepPrototype>();
+		for (StepPrototype step : steps) {
+			stepList.add(step);
+		}
+		
+		return BehaviorPrototype.createSequential(goalName).setSteps(stepList);
+	}
+}
@@ -2,8 +2,9 @@ package chaseragent;
 
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.HashMap;
 
+import microabl.ActionDispatcher;
+import microabl.ActionHandler;
 import microabl.ActionListener;
 import microabl.Agent;
 import microabl.abt.ActionNode;
@@ -31,6 +32,9 @@ public class ChaserAgent implements ActionListener {
 	
 	/** the ABL agent */
 	private Agent agent;
+
+	/** routes actions to their handlers */
+	private ActionDispatcher dispatcher;
 	
 	/** WME for tracking the chaser */	
 	private ChaserWME chaser; 
@@ -41,7 +45,10 @@ public class ChaserAgent implements ActionListener {
 	public ChaserAgent(Game game) {
 		this.game = game; 
 		
+		dispatcher = createDispatcher();
 		agent = new Agent(getBehaviorLibrary(), this);
+		agent.setExpansionBudget(Integer.MAX_VALUE);
+		agent.setConditionPlanning(true);
 
 		// set up working memory 
 		chaser = new ChaserWME();
@@ -239,65 +246,93 @@ public class ChaserAgent implements ActionListener {
 //		agent.printABT();
 	} 
 	
-	private HashMap<ActionNode, Long> waitActions = new HashMap<ActionNode, Long>(); 
- 
 	public void execute(ActionNode action) {
+		dispatcher.execute(action);
+	}
+
+	/**
+	 * Creates a dispatcher with a handler for each action. 
+	 */
+	private ActionDispatcher createDispatcher() {
+		ActionDispatcher dispatcher = new ActionDispatcher();
 
 		// log action
-		if (action.getActionName().equals(LogAction)) {
-			System.out.println(action.getExecutionParameters()[0]);
-			action.setStatus(NodeStatus.Success);
-		}
+		dispatcher.register(LogAction, new ActionHandler() {
+			public void execute(ActionNode action) {
+				System.out.println(action.getExecutionParameters()[0]);
+				action.setStatus(NodeStatus.Success);
+			}
+		});
+		
 		// fire 
-		else if (action.getActionName().equals(FireAction)) {
-			game.fireChaserBullet( 
-					new Point((Integer)action.getExecutionParameters()[0], (Integer)action.getExecutionParameters()[1]), 
-					new Point((Integer)action.getExecutionParameters()[2], (Integer)action.getExecutionParameters()[3]));
-						
-			action.setStatus(NodeStatus.Success);
-		}
+		dispatcher.register(FireAction, new ActionHandler() {
+			public void execute(ActionNode action) {
+				game.fireChaserBullet( 
+						new Point((Integer)action.getExecutionParameters()[0], (Integer)action.getExecutionParameters()[1]), 
+						new Point((Integer)action.getExecutionParameters()[2], (Integer)action.getExecutionParameters()[3]));
+				
+				action.setStatus(NodeStatus.Success);
+			}
+		});
+		
 		// move left
-		else if (action.getActionName().equals(MoveLeftAction)) {			
-			game.moveChaserLeft();
-			action.setStatus(NodeStatus.Success);
-		}
+		dispatcher.register(MoveLeftAction, new ActionHandler() {
+			public void execute(ActionNode action) {
+				game.moveChaserLeft();
+				action.setStatus(NodeStatus.Success);
+			}
+		});
+		
 		// move right
-		else if (action.getActionName().equals(MoveRightAction)) {			
-			game.moveChaserRight();
-			action.setStatus(NodeStatus.Success);
-		}
+		dispatcher.register(MoveRightAction, new ActionHandler() {
+			public void execute(ActionNode action) {
+				game.moveChaserRight();
+				action.setStatus(NodeStatus.Success);
+			}
+		});
+		
 		// move up
-		else if (action.getActionName().equals(MoveUpAction)) {			
-			game.moveChaserUp();
-			action.setStatus(NodeStatus.Success);
-		} 
- 		// move down  
-		else if (action.getActionName().equals(MoveDownAction)) {			
-			game.moveChaserDown();
-			action.setStatus(NodeStatus.Success);
-		}
+		dispatcher.register(MoveUpAction, new ActionHandler() {
+			public void execute(ActionNode action) {
+				game.moveChaserUp();
+				action.setStatus(NodeStatus.Success);
+			}
+		});
+		
+		// move down
+		dispatcher.register(MoveDownAction, new ActionHandler() {
+			public void execute(ActionNode action) {
+				game.moveChaserDown();
+				action.setStatus(NodeStatus.Success);
+			}
+		});
+		
 		// stop
-		else if (action.getActionName().equals(StopAction)) {			
-			game.stopChaser();
-			action.setStatus(NodeStatus.Success);
-		} 
+		dispatcher.register(StopAction, new ActionHandler() {
+			public void execute(ActionNode action) {
+				game.stopChaser();
+				action.setStatus(NodeStatus.Success);
+			}
+		});
+		
 		// wait 
-		else if (action.getActionName().equals(WaitAction)) {
-			waitActions.put(action, (System.currentTimeMillis() + (Integer)action.getExecutionParameters()[0]));
-		}
+		dispatcher.register(WaitAction, new ActionHandler() {
+			public void execute(ActionNode action) {
+				agent.completeActionAfter(action, (Integer)action.getExecutionParameters()[0]);
+			}
+		});
+		
+		return dispatcher;
 	}
 
 	/**
-	 * Check if wait actions have completed. 
+	 * Wait actions are completed by the agent's timers. 
 	 */
 	public void onUpdate(ActionNode action) {
-		if (waitActions.containsKey(action)) {
-			if (System.currentTimeMillis() >= waitActions.get(action)) {
-				action.setStatus(NodeStatus.Success);
-			}
-		}
+		dispatcher.onUpdate(action);
 	}
 	
 	public void abort(ActionNode action) {
+		dispatcher.abort(action);
 	}
 }
@@ -13,7 +13,10 @@ public class ChaserWME extends WME {
 	}
 	 
 	public void setX(int x) {
-		this.x = x;
+		if (this.x != x) {
+			this.x = x;
+			changed();
+		}
 	}
 	
 	public int getY() {
@@ -21,7 +24,10 @@ public class ChaserWME extends WME {
 	}
 	
 	public void setY(int y) {
-		this.y = y;
+		if (this.y != y) {
+			this.y = y;
+			changed();
+		}
 	}	
 	 
 	public static boolean greaterThanSum(Integer a, Integer b, Integer c) {
@@ -0,0 +1,77 @@
+package microabl;
+
+import microabl.abt.ABTRuntimeError;
+import microabl.abt.ActionNode;
+import microabl.prototype.ActionRegistry;
+/**
+ * An action listener that routes actions to listeners registered for each action name. 
+ * 
+ * Listeners are stored in an array indexed by action ID (see ActionRegistry), so the cost of
+ * dispatching an action does not depend on the number of registered actions. Actions without 
+ * a registered listener are sent to the default listener, or cause an error if there is none. 
+ * 
+ * Listeners should be registered before the dispatcher is used by an agent. 
+ */
+public class ActionDispatcher implements ActionListener {
+
+	/** listeners indexed by action ID */ 
+	private ActionListener[] listeners = new ActionListener[0];
+
+	/** listener for actions without a registered listener (null if there is none) */ 
+	private ActionListener defaultListener; 
+
+	/**
+	 * Registers the listener for an action name, replacing any previously registered listener. 
+	 */
+	public ActionDispatcher register(String actionName, ActionListener listener) {
+		int id = ActionRegistry.getId(actionName);
+		
+		if (id >= listeners.length) {
+			ActionListener[] resized = new ActionListener[Math.max(id + 1, listeners.length * 2)];
+			System.arraycopy(listeners, 0, resized, 0, listeners.length);
+			listeners = resized;
+		}
+		
+		listeners[id] = listener;
+		return this;
+	}
+
+	/**
+	 * Sets the listener for actions without a registered listener. 
+	 */
+	public ActionDispatcher setDefaultListener(ActionListener defaultListener) {
+		this.defaultListener = defaultListener;
+		return this;
+	}
+
+	public void execute(ActionNode action) {
+		getListener(action).execute(action);
+	}
+
+	public void onUpdate(ActionNode action) {
+		getListener(action).onUpdate(action);
+	}
+
+	public void abort(ActionNode action) {
+		getListener(action).abort(action);
+	}
+
+	/**
+	 * Returns the listener for an action. 
+	 * 
+	 * Throws an error if the action has no listener. 
+	 */
+	private ActionListener getListener(ActionNode action) {
+		int id = action.getActionId();
+		
+		if (id < listeners.length && listeners[id] != null) {
+			return listeners[id];
+		}
+		else if (defaultListener != null) {
+			return defaultListener;
+		}
+		else {
+			throw new ABTRuntimeError("No listener for action: " + action.getActionName());
+		}
+	}
+}
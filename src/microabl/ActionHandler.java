@@ -0,0 +1,16 @@
+package microabl;
+
+import microabl.abt.ActionNode;
+/**
+ * An action listener for a single action, registered with an ActionDispatcher. Handlers only
+ * need to implement execute, since executing actions are not notified of decision cycles or
+ * aborts by default. 
+ */
+public abstract class ActionHandler implements ActionListener {
+
+	public void onUpdate(ActionNode action) {
+	}
+
+	public void abort(ActionNode action) {
+	}
+}
@@ -1,12 +1,20 @@
 package microabl;
 
+import java.time.Clock;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
 
+import microabl.AgentMetrics.Phase;
+import microabl.abt.ABTListener;
 import microabl.abt.ABTNode;
 import microabl.abt.ABTRuntimeError;
 import microabl.abt.ActionNode;
@@ -21,9 +29,16 @@ import microabl.abt.WaitStepNode;
 import microabl.abt.ABTNode.NodeStatus;
 import microabl.prototype.BehaviorPrototype;
 import microabl.prototype.ConditionPrototype;
+import microabl.prototype.StepPrototype;
 import microabl.prototype.Variable;
+import microabl.prototype.VariableFrame;
+import microabl.rete.BetaNetwork;
+import microabl.rete.ReteMatcher;
+import microabl.timer.Timer;
+import microabl.timer.TimerWheel;
 import microabl.wm.WME;
 import microabl.wm.WorkingMemory;
+import microabl.wm.WorkingMemoryListener;
 /**
  * Represents an ABL agent. An agent has a working memory, behavior library, and collection
  * of action behavior trees (ABT). 
@@ -34,7 +49,8 @@ import microabl.wm.WorkingMemory;
  * 
  * Behaviors can have a collection of variables, which are scoped to the behavior node. These
  * include parameters in the behavior signature, variables bound in condition checks, and 
- * variables bound to WME instances and results of mental acts. 
+ * variables bound to WME instances and results of mental acts. Variables are stored in slots 
+ * assigned when the behavior library is compiled, rather than looked up by name. 
  * 
  * Many of the node types support a set of parameters, such as actions and goals. Parameters
  * are specified in the step and behavior prototypes as literals and Variable objects. During
@@ -45,11 +61,35 @@ import microabl.wm.WorkingMemory;
  * As opposed to ABL, Micro ABL uses a single threaded model. Agent updates are performed by
  * invoking the update method. Actions selected for execution are sent to an action listener
  * that is responsible for scheduling the actions. No changes to working memory should be 
- * performed while update is invoked. 
+ * performed while update is invoked. Action listeners that complete actions from other threads
+ * should use ActionNode.complete, which posts the completion to a lock-free queue that is 
+ * drained at the start of each decision cycle. 
  * 
- * The current version is potentially slow, because things are looked up each decision
- * cycle and no caching is performed. For example, the agent looks through all behaviors in
- * the library when attempted to pursue a goal. 
+ * The agent has a clock and a timing wheel of timers that are run at the start of each decision
+ * cycle. Timers implement wait step timeouts, behavior deadlines, and actions that complete 
+ * after a delay, and pending timers do not add to the cost of a decision cycle. 
+ * 
+ * Condition lists can be evaluated in a cost-based order (see setConditionPlanning), and 
+ * condition results can be memoized (see setConditionMemoization), so conditions whose inputs 
+ * have not changed are not re-evaluated each decision cycle. 
+ * 
+ * A decision cycle can be performed within a time budget with update(budget), which suspends 
+ * the cycle when the budget is spent and resumes it on the next update. 
+ * 
+ * Many agents can be updated in parallel by an AgentScheduler, which guarantees that each agent 
+ * is only updated by one thread at a time. A scheduled agent is only updated by its scheduler, 
+ * and update throws an error while the agent is scheduled. 
+ * 
+ * The agent emits Java Flight Recorder events (see the microabl.jfr package) for decision cycles, 
+ * goal expansion, behavior selection and failure, condition evaluation, and action execution 
+ * and aborts. Events are sent to an AgentRecorder, which ignores them if the runtime does not 
+ * provide jdk.jfr. 
+ * 
+ * Little is looked up by name during a decision cycle. The behavior library is compiled into an 
+ * index keyed by goal name and arity, so goal expansion only considers candidate behaviors, 
+ * and compiling resolves variables to slots and WME attributes to accessors. Conditions retrieve
+ * candidate WMEs from attribute indexes when working memory has them, and can be matched 
+ * incrementally (see setIncrementalMatching), memoized, or reordered by cost, as described above. 
  * 
  * MicroABL should be portable to new languages without too much effort. The main concern is
  * situations where reflection is used. These include attribute look-up for WMEs, mental
@@ -59,260 +99,1177 @@ import microabl.wm.WorkingMemory;
  *  1. Add logging tracking ABT modifications and condition checks.
  *  2. Remove runtime ABTErrors with some sort of static checking and allow failures to occur. 
  *  
- * This implementation assumes that the ABT and node status will not be modified outside of the
- * scope of the update method. It should be possible for an external process to set the status
- * of nodes, but this has not been tested.
+ * This implementation assumes that the ABT will not be modified outside of the scope of the update
+ * method. Status changes made by an external process are recorded as dirty nodes and are picked up 
+ * by the next update, but concurrent status changes have not been tested.
  * 
  * @author Ben Weber, 5-23-12
  */
 public class Agent {
 
 	/** behavior prototypes available for expansion */ 
-	private ArrayList<BehaviorPrototype> behaviorLibrary; 
+	private BehaviorLibrary behaviorLibrary; 
 	
-	/** action listener for executing physical actions */ 
+	/** action listener for executing physical actions (null if actions are executed asynchronously) */ 
 	private ActionListener actionListener; 
+
+	/** action listener for executing physical actions asynchronously (null if actions are executed by the action listener) */ 
+	private AsyncActionListener asyncActionListener; 
  
 	/** the agent's working memory */ 
 	private WorkingMemory workingMemory = new WorkingMemory();
 
-	/** list of BTs monitored by the agent */ 
-	private ArrayList<ABTNode> rootNodes = new ArrayList<ABTNode>();  
-	
-	/** the agent's initial goal */ 
-	public static String INITIAL_GOAL = "init_tree"; 
+	/** list of BTs monitored by the agent */ 
+	private ArrayList<ABTNode> rootNodes = new ArrayList<ABTNode>();  
+	
+	/** the agent's initial goal */ 
+	public static String INITIAL_GOAL = "init_tree"; 
+
+	/** comparator for sorting ABT nodes based on priority, nodes with equal priority are ordered by creation */ 
+	Comparator<ABTNode> priorityComparator = new Comparator<ABTNode>() {
+		public int compare(ABTNode node1, ABTNode node2) { 
+			if (node1.getPriority() != node2.getPriority()) {
+				return node2.getPriority() - node1.getPriority();
+			}
+			else {
+				return Long.compare(node1.getSequence(), node2.getSequence());
+			}
+		} 
+	}; 
+
+	/** open nodes in the ABT, sorted by priority */ 
+	private TreeSet<ABTNode> openNodes = new TreeSet<ABTNode>(priorityComparator);
+
+	/** executing actions in the ABT (only tracked if actions are notified each decision cycle) */ 
+	private LinkedHashSet<ActionNode> executingActions = new LinkedHashSet<ActionNode>();
+
+	/** executing behaviors in the ABT with success or context conditions */ 
+	private LinkedHashSet<BehaviorNode> monitoredBehaviors = new LinkedHashSet<BehaviorNode>();
+
+	/** completed nodes in the ABT */ 
+	private LinkedHashSet<ABTNode> completedNodes = new LinkedHashSet<ABTNode>();
+
+	/** nodes that were added or changed since the node sets were last updated (status changes may be reported by other threads) */ 
+	private ConcurrentLinkedQueue<ABTNode> dirtyNodes = new ConcurrentLinkedQueue<ABTNode>();
+
+	/** actions completed by action listeners, applied at the start of the next decision cycle */ 
+	private ConcurrentLinkedQueue<ActionNode> completedActions = new ConcurrentLinkedQueue<ActionNode>();
+
+	/** the agent's clock */ 
+	private Clock clock = Clock.systemUTC(); 
+
+	/** timers run at the start of each decision cycle */ 
+	private TimerWheel timers = new TimerWheel(clock.millis());
+
+	/** incremental matcher for success and context conditions (null if incremental matching is disabled) */ 
+	private ReteMatcher matcher; 
+
+	/** metrics recorded each decision cycle (null if metrics are disabled) */ 
+	private AgentMetrics metrics; 
+
+	/** the scheduler that updates the agent (null if the agent is not scheduled) */ 
+	volatile AgentScheduler scheduler; 
+
+	/** receives flight recorder events */ 
+	private final AgentRecorder recorder = AgentRecorder.getRecorder(); 
+
+	/** maximum number of open nodes expanded per decision cycle */ 
+	private int expansionBudget = 1; 
+
+	/** memoized results of condition lists (null if memoization is disabled) */ 
+	private ConditionMemo conditionMemo; 
+
+	/** orders the conditions of condition lists (null if conditions are evaluated in authored order) */ 
+	private ConditionPlanner conditionPlanner; 
+
+	/** the task the current decision cycle resumes from (Completions if no cycle is suspended) */ 
+	private Phase cyclePhase = Phase.Completions; 
+
+	/** number of open nodes expanded in the current decision cycle */ 
+	private int cycleExpansions; 
+
+	/** true while a time-budgeted update is performed */ 
+	private boolean timeSliced; 
+
+	/** System.nanoTime at which the time-budgeted update is suspended */ 
+	private long sliceDeadline; 
+
+	/** behaviors whose conditions are tested by a time-budgeted condition task (null if no task is in progress) */ 
+	private BehaviorNode[] pendingBehaviors; 
+
+	/** index of the next behavior in pendingBehaviors to test */ 
+	private int pendingIndex; 
+
+	/** match networks for the success conditions of monitored behaviors */ 
+	private HashMap<BehaviorNode, BetaNetwork> successNetworks = new HashMap<BehaviorNode, BetaNetwork>();
+
+	/** match networks for the context conditions of monitored behaviors */ 
+	private HashMap<BehaviorNode, BetaNetwork> contextNetworks = new HashMap<BehaviorNode, BetaNetwork>();
+
+	/** wait steps with unsatisfied conditions, indexed by the WME classes referenced by their conditions (only used with incremental matching) */ 
+	private HashMap<Class, LinkedHashSet<WaitStepNode>> parkedWaitSteps = new HashMap<Class, LinkedHashSet<WaitStepNode>>();
+
+	/** wakes parked wait steps when WMEs of the classes they reference change */ 
+	private WorkingMemoryListener wakeupListener = new WorkingMemoryListener() {
+		public void wmeAdded(WME wme) {
+			wakeWaitSteps(wme);
+		}
+
+		public void wmeRemoved(WME wme) {
+			wakeWaitSteps(wme);
+		}
+
+		public void wmeUpdated(WME wme) {
+			wakeWaitSteps(wme);
+		}
+	};
+
+	/** marks nodes as dirty as the ABT is modified */ 
+	private ABTListener abtListener = new ABTListener() {
+		public void nodeAdded(ABTNode node) {
+			dirtyNodes.add(node);
+		}
+
+		public void nodeRemoved(ABTNode node) {
+			unindexNode(node);
+		}
+
+		public void statusChanged(ABTNode node, NodeStatus previousStatus) {
+			dirtyNodes.add(node);
+		}
+
+		public void priorityChanging(ABTNode node) {
+			openNodes.remove(node);
+		}
+
+		public void priorityChanged(ABTNode node) {
+			dirtyNodes.add(node);
+		}
+	};
+  	
+	/**
+	 * Creates an agent with the given behavior library and action listener. The agent creates an ABT with 
+	 * a single goal. 
+
+	 * @param behaviorLibrary - behaviors available for expansion
+	 * @param actionListener - action listener for performing physical actions 
+	 */
+	public Agent(ArrayList<BehaviorPrototype> behaviorLibrary, ActionListener actionListener) {
+		this(new BehaviorLibrary(behaviorLibrary), actionListener);
+	}
+
+	/**
+	 * Creates an agent with a compiled behavior library. Compiled libraries can be shared
+	 * between agents. 
+	 * 
+	 * @param behaviorLibrary - behaviors available for expansion
+	 * @param actionListener - action listener for performing physical actions 
+	 */
+	public Agent(BehaviorLibrary behaviorLibrary, ActionListener actionListener) {
+		this.behaviorLibrary = behaviorLibrary;
+		this.actionListener = actionListener;		
+
+		addRoot(new GoalNode(INITIAL_GOAL, new Object[0]));
+	}
+
+	/**
+	 * Creates an agent with an asynchronous action listener. 
+	 * 
+	 * @param behaviorLibrary - behaviors available for expansion
+	 * @param actionListener - action listener for performing physical actions 
+	 */
+	public Agent(ArrayList<BehaviorPrototype> behaviorLibrary, AsyncActionListener actionListener) {
+		this(new BehaviorLibrary(behaviorLibrary), actionListener);
+	}
+
+	/**
+	 * Creates an agent with a compiled behavior library and an asynchronous action listener. 
+	 * Executing actions are not notified of decision cycles, since completion is reported by 
+	 * the stage returned when the action is executed. 
+	 * 
+	 * @param behaviorLibrary - behaviors available for expansion
+	 * @param actionListener - action listener for performing physical actions 
+	 */
+	public Agent(BehaviorLibrary behaviorLibrary, AsyncActionListener actionListener) {
+		this.behaviorLibrary = behaviorLibrary;
+		this.asyncActionListener = actionListener;		
+
+		addRoot(new GoalNode(INITIAL_GOAL, new Object[0]));
+	}
+
+	/**
+	 * Returns the agent's working memory. 
+	 */
+	public WorkingMemory getWorkingMemory() {
+		return workingMemory;
+	} 
+
+	/**
+	 * Sets the clock that drives the agent's timers. Pending timers (e.g. wait step timeouts and 
+	 * behavior deadlines) are moved to the timers of the new clock, and keep their deadlines. 
+	 */
+	public void setClock(Clock clock) {
+		TimerWheel timers = new TimerWheel(clock.millis());
+		this.timers.moveTo(timers);
+		
+		this.clock = clock;
+		this.timers = timers;
+	}
+
+	/**
+	 * Returns the current time of the agent's clock, in milliseconds. 
+	 */
+	public long getTime() {
+		return clock.millis();
+	}
+
+	/**
+	 * Returns the timers run at the start of each decision cycle. Timers must only be scheduled
+	 * by the thread that updates the agent (e.g. from ActionListener.execute). 
+	 */
+	public TimerWheel getTimers() {
+		return timers;
+	}
+
+	/**
+	 * Completes an executing action successfully after a delay. Must be invoked by the thread 
+	 * that updates the agent. 
+	 * 
+	 * @param action - the action to complete 
+	 * @param delay - milliseconds until the action completes 
+	 * @return a timer that can be cancelled 
+	 */
+	public Timer completeActionAfter(final ActionNode action, long delay) {
+		return timers.schedule(getTime() + delay, new Runnable() {
+			public void run() {
+				action.complete(true);
+			}
+		});
+	}
+ 	 
+	/**
+	 * Enables or disables incremental matching of success and context conditions. 
+	 * 
+	 * When enabled, the conditions of executing behaviors are matched by a Rete network that is 
+	 * updated as working memory changes, instead of being re-evaluated each decision cycle. 
+	 * Wait steps with unsatisfied conditions are parked, and are only re-evaluated when a WME of
+	 * a class referenced by their conditions is added, removed, or updated. Condition lists with 
+	 * mental conditions are still evaluated each decision cycle. Modified WMEs must be reported 
+	 * with WorkingMemory.updateWME or WME.changed, and variables are only bound from complete matches. 
+	 */
+	public void setIncrementalMatching(boolean enabled) {
+		if (enabled && matcher == null) {
+			matcher = new ReteMatcher(workingMemory);
+			workingMemory.addListener(wakeupListener);
+			
+			for (BehaviorNode behavior : monitoredBehaviors) {
+				createNetworks(behavior);
+			}
+		}
+		else if (!enabled && matcher != null) {
+			for (BehaviorNode behavior : monitoredBehaviors) {
+				disposeNetworks(behavior);
+			}
+			
+			matcher.dispose();
+			matcher = null; 
+
+			workingMemory.removeListener(wakeupListener);
+			wakeAllWaitSteps();
+		}
+	}
+
+	/**
+	 * Enables recording of decision cycle metrics, or disables recording if metrics is null. 
+	 * Disabled metrics add no timing calls or counting to a decision cycle. 
+	 */
+	public void setMetrics(AgentMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the metrics recorded by the agent, or null if metrics are disabled. 
+	 */
+	public AgentMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Enables or disables memoization of condition results (see ConditionMemo). 
+	 * 
+	 * When enabled, a condition list without mental conditions is only evaluated if the variables 
+	 * it tests or the WMEs of the classes it references changed since it was last evaluated with
+	 * the same inputs. Modified WMEs must be reported with WorkingMemory.updateWME or WME.changed. 
+	 * Condition lists matched incrementally are not memoized. 
+	 */
+	public void setConditionMemoization(boolean enabled) {
+		conditionMemo = enabled ? new ConditionMemo(workingMemory) : null;
+	}
+
+	/**
+	 * Enables or disables cost-based ordering of condition lists (see ConditionPlanner). 
+	 * 
+	 * When enabled, negation and mental conditions are evaluated as early as the variables they 
+	 * test allow, and WME conditions are evaluated in order of their estimated matches. A list 
+	 * holds if and only if it holds in authored order, but variables may be bound to a different
+	 * match. Condition lists matched incrementally are not reordered. 
+	 */
+	public void setConditionPlanning(boolean enabled) {
+		conditionPlanner = enabled ? new ConditionPlanner(workingMemory) : null;
+	}
+
+	/**
+	 * Sets the maximum number of open nodes expanded per decision cycle. The default budget of 1
+	 * expands only the highest priority open node, as in ABL. 
+	 * 
+	 * With a larger budget, the open nodes are expanded in priority order until the budget is spent, 
+	 * so many expansions share the other tasks of a decision cycle. Only nodes that were open at the
+	 * start of the expansion task are expanded: nodes added by an expansion are expanded in a later
+	 * decision cycle, and the batch ends when an expansion fails, since the failure can abort the 
+	 * remaining open nodes. Conditions are not re-tested between the expansions of a batch. 
+	 * 
+	 * @param budget - maximum expansions per decision cycle, or Integer.MAX_VALUE for no limit 
+	 */
+	public void setExpansionBudget(int budget) {
+		if (budget < 1) {
+			throw new ABTRuntimeError("Invalid expansion budget: " + budget);
+		}
+		
+		this.expansionBudget = budget;
+	}
+
+	public int getExpansionBudget() {
+		return expansionBudget;
+	}
+
+	/**
+	 * Performs an ABL decision cycle, or tick. Expired timers are run and action completions 
+	 * posted since the previous decision cycle are applied, then the following tasks are performed:
+	 *  1. Notify executing actions that a decision cycle is being performed 
+	 *  2. Success and context conditions are tested. 
+	 *  3. Subtrees attached to completed nodes are pruned.
+	 *  4. Completed nodes are removed from the ABT. 
+	 *  5. Open nodes are retrieved.
+	 *  6. The highest priority open node is expanded, or open nodes are expanded in priority order
+	 *     up to the expansion budget. 
+	 *  
+	 * Rather than traversing the ABT, each task is driven by a set of nodes (e.g. executing actions, open 
+	 * nodes) that is kept up to date from the nodes that were added or changed since the previous task. 
+	 * An ABT where nothing has changed costs little to update, regardless of its size. 
+	 *  
+	 * Throws an error if the agent is updated by an AgentScheduler. 
+	 *  
+	 * @return true if the ABT was expanded 
+	 */
+	public boolean update() {
+		if (scheduler != null) {
+			throw new ABTRuntimeError("Agent is updated by an AgentScheduler");
+		}
+		
+		return performUpdate();
+	}
+
+	/**
+	 * Performs a decision cycle for the agent's scheduler (see AgentScheduler.tick). 
+	 */
+	boolean scheduledUpdate() {
+		return performUpdate();
+	}
+
+	/**
+	 * Performs a decision cycle, or the part of a suspended decision cycle within the time budget. 
+	 */
+	private boolean performUpdate() {
+		Object event = recorder.beginCycle();
+		
+		boolean expanded;
+		if (metrics == null) {
+			expanded = decisionCycle();
+		}
+		else {
+			if (cyclePhase == Phase.Completions) {
+				metrics.beginCycle();
+			}
+			else {
+				metrics.resumeCycle();
+			}
+			
+			expanded = decisionCycle();
+			
+			if (cyclePhase == Phase.Completions) {
+				metrics.endCycle(openNodes.size(), cycleExpansions > 0);
+			}
+		}
+		
+		if (cyclePhase == Phase.Completions) {
+			cycleExpansions = 0;
+		}
+		
+		recorder.endCycle(event, expanded, isSuspended(), openNodes.size(), rootNodes.size());
+		
+		return expanded;
+	}
+
+	/**
+	 * Performs a decision cycle within a time budget. If the budget is spent before the cycle 
+	 * is finished, the cycle is suspended and the next update resumes it from the same point. 
+	 * 
+	 * The budget is checked between the tasks of a decision cycle, between the behaviors whose 
+	 * conditions are tested, and between the expansions of open nodes, so a single condition 
+	 * test or expansion can exceed it. Each update makes progress on the cycle, even if the budget
+	 * is spent. Expired timers and action completions are handled when a new cycle starts, and 
+	 * a resumed expansion task also considers open nodes added earlier in the cycle. 
+	 * 
+	 * @param budget - the time budget, in nanoseconds 
+	 * @return true if the ABT was expanded during this update 
+	 */
+	public boolean update(long budget) {
+		sliceDeadline = System.nanoTime() + budget;
+		timeSliced = true;
+		
+		try {
+			return update();
+		}
+		finally {
+			timeSliced = false;
+		}
+	}
+
+	/**
+	 * Returns true if a decision cycle was suspended by a time-budgeted update and has not 
+	 * yet been resumed to completion. 
+	 */
+	public boolean isSuspended() {
+		return cyclePhase != Phase.Completions;
+	}
+
+	/**
+	 * Performs the tasks of a decision cycle (see update), starting from the task the cycle was
+	 * suspended at. 
+	 * 
+	 * @return true if the ABT was expanded 
+	 */
+	private boolean decisionCycle() {
+		
+		if (cyclePhase == Phase.Completions) {
+			
+			// tree finished?
+			if (rootNodes.size() == 0) {
+				return false; 
+			} 
+		
+			// run expired timers and apply action completions 
+			timers.advance(getTime());
+			recordPhase(Phase.Completions, applyActionCompletions());
+			
+			if (nextPhase(Phase.Actions)) {
+				return false;
+			}
+		}
+		
+		if (cyclePhase == Phase.Actions) {
+			
+			// 1. notify executing actions 
+			indexDirtyNodes();
+			notifyExecutingActions();
+			recordPhase(Phase.Actions, executingActions.size());
+			
+			if (nextPhase(Phase.Conditions)) {
+				return false;
+			}
+		}
+  		 
+		if (cyclePhase == Phase.Conditions) {
+			
+			// 2. test success conditions and context conditions
+			if (!timeSliced && pendingBehaviors == null) {
+				indexDirtyNodes();
+				testBehaviorCondtions();
+				recordPhase(Phase.Conditions, monitoredBehaviors.size());
+			}
+			else if (!testBehaviorConditionsSliced()) {
+				return false;
+			}
+			
+			if (nextPhase(Phase.Prune)) {
+				return false;
+			}
+		}
+ 
+		if (cyclePhase == Phase.Prune) {
+			
+			// 3. clear subtrees attached to completed parents 
+			indexDirtyNodes();
+			int numCompleted = completedNodes.size();
+			pruneTree();
+			recordPhase(Phase.Prune, numCompleted);
+			
+			if (nextPhase(Phase.Complete)) {
+				return false;
+			}
+		}
+		 
+		if (cyclePhase == Phase.Complete) {
+			
+			// 4. find completed nodes
+			indexDirtyNodes();
+			ArrayList<ABTNode> completed = findCompletedNodes();
+	  
+			for (ABTNode node : completed) {
+				ABTNode parent = node.getParent();
+				
+				if (node instanceof BehaviorNode && node.isFailure()) {
+					behaviorFailed((BehaviorNode)node);
+				}
+				
+				if (parent == null) {
+					rootNodes.remove(node);
+					node.detach();
+	 				 
+					if (rootNodes.size() == 0) {
+						recordPhase(Phase.Complete, completed.size());
+						cyclePhase = Phase.Completions;
+						return false; 
+					}
+				}  
+				else {  
+					parent.removeChild(node);
+					parent.childCompleted(node);
+				}
+			}
+			
+			recordPhase(Phase.Complete, completed.size());
+			
+			if (nextPhase(Phase.Expand)) {
+				return false;
+			}
+		}
+
+		// 5. find open nodes, in priority order 
+		indexDirtyNodes();
+		int visited = 0;
+		int expansions = 0;
+		for (ABTNode node = firstOpenNode(); node != null; node = openNodes.higher(node)) {
+			visited++;
+			
+			// nodes below completed nodes are pruned on the next update, and nodes 
+			// changed by an earlier expansion in the batch are indexed on the next update 
+			if (!node.isOpen() || hasCompletedAncestor(node)) {
+				continue; 
+			}
+			
+			// 6. expand open nodes 
+			if (expand(node)) {
+				if (metrics != null) {
+					metrics.nodeExpanded();
+				}
+				
+				expansions++;
+				cycleExpansions++;
+				if (cycleExpansions == expansionBudget) {
+					break;
+				}
+			}
+			
+			if (node.isFailure() && cycleExpansions > 0) {
+				break;
+			}
+			
+			// resume the expansion task in the next update 
+			if (sliceExhausted() && openNodes.higher(node) != null) {
+				suspend(visited);
+				return expansions > 0;
+			}
+		}
+		
+		recordPhase(Phase.Expand, visited);
+		cyclePhase = Phase.Completions;
+		return expansions > 0; 
+	}
+
+	/**
+	 * Advances the decision cycle to the next task, and suspends the cycle if the time budget
+	 * is spent. 
+	 * 
+	 * @return true if the cycle was suspended 
+	 */
+	private boolean nextPhase(Phase phase) {
+		cyclePhase = phase;
+		
+		if (sliceExhausted()) {
+			suspend(0);
+			return true;
+		}
+		
+		return false;
+	}
+
+	/**
+	 * Returns true if the update is time-budgeted and the budget is spent. 
+	 */
+	private boolean sliceExhausted() {
+		return timeSliced && System.nanoTime() >= sliceDeadline;
+	}
+
+	/**
+	 * Records the suspension of the decision cycle. 
+	 * 
+	 * @param visited - nodes visited by the current task before it was suspended 
+	 */
+	private void suspend(int visited) {
+		if (metrics != null) {
+			metrics.suspendCycle(cyclePhase, visited);
+		}
+	}
+
+	/**
+	 * Tests the success and context conditions of the monitored behaviors, suspending the task 
+	 * when the time budget is spent. The behaviors to test are captured when the task starts, 
+	 * and the task resumes from the next untested behavior. 
+	 * 
+	 * @return true if all behaviors were tested, false if the task was suspended 
+	 */
+	private boolean testBehaviorConditionsSliced() {
+		if (pendingBehaviors == null) {
+			indexDirtyNodes();
+			pendingBehaviors = monitoredBehaviors.toArray(new BehaviorNode[monitoredBehaviors.size()]);
+			pendingIndex = 0;
+		}
+		
+		int visited = 0;
+		while (pendingIndex < pendingBehaviors.length) {
+			BehaviorNode behavior = pendingBehaviors[pendingIndex++];
+			
+			if (monitoredBehaviors.contains(behavior)) {
+				testBehaviorConditions(behavior);
+				visited++;
+			}
+			
+			if (pendingIndex < pendingBehaviors.length && sliceExhausted()) {
+				suspend(visited);
+				return false;
+			}
+		}
+		
+		pendingBehaviors = null;
+		recordPhase(Phase.Conditions, visited);
+		return true;
+	}
+
+	/**
+	 * Emits a flight recorder event for a failed behavior. 
+	 */
+	private void behaviorFailed(BehaviorNode behavior) {
+		recorder.behaviorFailed(behavior.getGoalName(), behavior.getPrototype().getSpecificity(), behavior.getPrototype().isSequential());
+	}
+
+	/**
+	 * Records the end of a decision cycle phase, if metrics are enabled. 
+	 */
+	private void recordPhase(Phase phase, int visited) {
+		if (metrics != null) {
+			metrics.endPhase(phase, visited);
+		}
+	}
+
+	public Iterable<ABTNode> getRoots() {
+		return rootNodes;
+	}
+
+	/**
+	 * Applies the completions posted by action listeners. Completions of actions that are no 
+	 * longer executing (e.g. aborted actions) are ignored. 
+	 * 
+	 * @return the number of completions polled 
+	 */
+	private int applyActionCompletions() {
+		int polled = 0;
+		
+		ActionNode action;
+		while ((action = completedActions.poll()) != null) {
+			polled++;
+			NodeStatus status = action.takeCompletionStatus();
+			
+			if (status == null || !action.isAttached() || !action.isExecuting()) {
+				continue;
+			}
+			
+			if (action.getResultBinding() != null) {
+				setVariable(action, action.getResultBinding(), action.getResult());
+			}
+			
+			action.setStatus(status);
+		}
+		
+		return polled;
+	}
+
+	/**
+	 * Notify executing actions that a decision cycle is being performed. 
+	 */
+	private void notifyExecutingActions() {
+		for (ActionNode action : executingActions) {
+			actionListener.onUpdate(action); 
+		}
+	} 
+	
+	/**
+	 * Evaluates the success conditions and context conditions of executing behaviors. 
+	 */
+	private void testBehaviorCondtions() {
+		for (BehaviorNode behavior : monitoredBehaviors) {
+			testBehaviorConditions(behavior);
+		}
+	}
+
+	/**
+	 * Evaluates the success conditions and context conditions of an executing behavior. 
+	 */
+	private void testBehaviorConditions(BehaviorNode behavior) {
+			 
+		// Behaviors with satisfied success conditions immediately succeed.
+		if (behavior.getSuccessConditions().size() > 0) {
+			if (testConditions("Success", behavior.getGoalName(), behavior.getVariables(), behavior.getSuccessConditions(), successNetworks.get(behavior))) {
+				behavior.setStatus(NodeStatus.Success);
+			}
+		}
+ 			 
+		// Behaviors with unsatisfied context conditions immediately fail.
+		if (behavior.getContextConditions().size() > 0) {
+			if (!testConditions("Context", behavior.getGoalName(), behavior.getVariables(), behavior.getContextConditions(), contextNetworks.get(behavior))) {
+				behavior.setStatus(NodeStatus.Failure);
+			}
+		}
+	}
+
+	/**
+	 * Evaluates a list of conditions, using a match network if there is one, and emits a flight 
+	 * recorder event for the evaluation. Empty condition lists hold. 
+	 * 
+	 * @param conditionList - the kind of condition list (Precondition, Success, Context, or Wait) 
+	 * @param goalName - goal name of the behavior declaring the conditions 
+	 * @param variables - variables of the behavior 
+	 * @param conditions - the conditions to evaluate
+	 * @param network - match network for the conditions (null if the conditions are searched) 
+	 * @return true if the conditions hold 
+	 */
+	private boolean testConditions(String conditionList, String goalName, VariableFrame variables, ArrayList<ConditionPrototype> conditions, BetaNetwork network) {
+		if (conditions.isEmpty()) {
+			return true;
+		}
+		
+		Object event = recorder.beginConditions();
+		
+		boolean result;
+		Boolean memoized = (network == null && conditionMemo != null) ? conditionMemo.lookup(conditions, variables) : null;
+		
+		if (memoized != null) {
+			result = memoized;
+			
+			if (metrics != null) {
+				metrics.memoHit();
+			}
+		}
+		else if (network != null) {
+			result = network.matches(variables);
+		}
+		else {
+			ConditionPlanner.Plan plan = (conditionPlanner != null) ? conditionPlanner.getPlan(conditions, variables) : null;
+			result = checkConditions(variables, (plan != null) ? plan.getConditions() : conditions, 0, plan);
+			
+			if (conditionMemo != null && conditionMemo.store(result, variables) && metrics != null) {
+				metrics.memoMiss();
+			}
+		}
+
+		recorder.endConditions(event, conditionList, goalName, conditions, network != null, memoized != null, result);
+		
+		return result;
+	}
+
+	/**
+	 * Creates match networks for the success and context conditions of a monitored behavior. 
+	 */
+	private void createNetworks(BehaviorNode behavior) {
+		BetaNetwork success = matcher.createNetwork(behavior.getSuccessConditions(), behavior.getVariables());
+		if (success != null) {
+			successNetworks.put(behavior, success);
+		}
+		
+		BetaNetwork context = matcher.createNetwork(behavior.getContextConditions(), behavior.getVariables());
+		if (context != null) {
+			contextNetworks.put(behavior, context);
+		}
+	}
+
+	/**
+	 * Disposes the match networks of a behavior that is no longer monitored. 
+	 */
+	private void disposeNetworks(BehaviorNode behavior) {
+		BetaNetwork success = successNetworks.remove(behavior);
+		if (success != null) {
+			success.dispose();
+		}
+		
+		BetaNetwork context = contextNetworks.remove(behavior);
+		if (context != null) {
+			context.dispose();
+		}
+	}
+	
+	/**
+	 * Searches for completed nodes with active children. Children of completed
+	 * nodes are aborted. 
+	 */
+	private void pruneTree() {
+		if (completedNodes.isEmpty()) {
+			return; 
+		}
+		
+		for (ABTNode node : new ArrayList<ABTNode>(completedNodes)) {
+			
+			// skip nodes removed by pruning a completed ancestor  
+			if (node.isAttached() && node.getNumChildren() > 0) {
+				
+				for (ABTNode child : node.getChildren()) {
+					abortTree(child);
+				}
+				
+				node.clearChildren();
+			}
+		}
+	} 
+ 
+	/** 
+	 * Tells the node to abort all children. 
+	 * 
+	 * If the node is an action, then the action is aborted. 
+	 */
+	private void abortTree(ABTNode node) {
+		for (ABTNode child : node.getChildren()) {
+			abortTree(child);
+		} 
+		
+		if (node instanceof ActionNode) {
+			Object event = recorder.beginActionAbort();
+			
+			if (actionListener != null) {
+				actionListener.abort((ActionNode)node); 
+			}
+			else {
+				asyncActionListener.abort((ActionNode)node); 
+			}
+			
+			recorder.endActionAbort(event, ((ActionNode)node).getActionName());
+		}
+	}
+
+	/**
+	 * Finds completed nodes in the ABT. Completed nodes with the same parent are returned in
+	 * the order of the parent's children. 
+	 */
+	private ArrayList<ABTNode> findCompletedNodes() {
+		ArrayList<ABTNode> completed = new ArrayList<ABTNode>();		
+		if (completedNodes.isEmpty()) {
+			return completed; 
+		}
 
-	/** comparator for sorting ABT nodes based on priority */ 
-	Comparator<ABTNode> priorityComparator = new Comparator<ABTNode>() {
-		public int compare(ABTNode node1, ABTNode node2) { 
-			if (node1.getPriority() != node2.getPriority()) {
-				return node2.getPriority() - node1.getPriority();
+		LinkedHashSet<ABTNode> parents = new LinkedHashSet<ABTNode>();
+		for (ABTNode node : completedNodes) {
+			if (node.getParent() == null) {
+				completed.add(node);
 			}
 			else {
-				return node1.hashCode() - node2.hashCode();
+				parents.add(node.getParent());
 			}
-		} 
-	}; 
-  	
-	/** comparator for sorting behavior prototypes based on specificity */ 
-	Comparator<BehaviorPrototype> specificityComparator = new Comparator<BehaviorPrototype>() {
-		public int compare(BehaviorPrototype b1, BehaviorPrototype b2) {
-			if (b1.getSpecificity() != b2.getSpecificity()) {
-				return b2.getSpecificity() - b1.getSpecificity();
-			} 
-			else {
-				return b1.hashCode() - b2.hashCode();
+		}
+		
+		for (ABTNode parent : parents) {
+			for (ABTNode child : parent.getChildren()) {
+				if (child.isCompleted()) {
+					completed.add(child);
+				}
 			}
-		}			
-	};
+		}
 		
+		return completed; 
+	}  
+
 	/**
-	 * Creates an agent with the given behavior library and action listener. The agent creates an ABT with 
-	 * a single goal. 
+	 * Updates the node sets for nodes that were added or changed since the sets were last updated. 
+	 */
+	private void indexDirtyNodes() {
+		ABTNode node;
+		while ((node = dirtyNodes.poll()) != null) {
+			if (node.isAttached()) {
+				indexNode(node);
+			}
+			else {
+				unindexNode(node);
+			}
+		}
+	}
 
-	 * @param behaviorLibrary - behaviors available for expansion
-	 * @param actionListener - action listener for performing physical actions 
+	/**
+	 * Adds the node to the node sets that match its status, and removes it from the others. 
+	 * Schedules the timeout of nodes that have one. 
 	 */
-	public Agent(ArrayList<BehaviorPrototype> behaviorLibrary, ActionListener actionListener) {
-		this.behaviorLibrary = behaviorLibrary;
-		this.actionListener = actionListener;		
+	private void indexNode(ABTNode node) {
+		if (node.getTimeout() > 0 && node.getTimeoutTimer() == null && !node.isCompleted()) {
+			scheduleTimeout(node);
+		}
+
+		if (node instanceof WaitStepNode && ((WaitStepNode)node).isParked() && !node.isOpen()) {
+			unparkWaitStep((WaitStepNode)node);
+		}
+
+		if (node.isOpen() && !(node instanceof WaitStepNode && ((WaitStepNode)node).isParked())) {
+			openNodes.add(node);
+		}
+		else {
+			openNodes.remove(node);
+		}
+
+		if (node.isCompleted()) {
+			completedNodes.add(node);
+		}
+		else {
+			completedNodes.remove(node);
+		}
 
-		rootNodes.add(new GoalNode(INITIAL_GOAL, new Object[0]));
+		if (node instanceof ActionNode && actionListener != null) {
+			if (node.isExecuting()) {
+				executingActions.add((ActionNode)node);
+			}
+			else {
+				executingActions.remove(node);
+			}
+		}
+		
+		if (node instanceof BehaviorNode) {
+			BehaviorNode behavior = (BehaviorNode)node;
+			if (behavior.isExecuting() && (behavior.getSuccessConditions().size() > 0 || behavior.getContextConditions().size() > 0)) {
+				if (monitoredBehaviors.add(behavior) && matcher != null) {
+					createNetworks(behavior);
+				}
+			}
+			else if (monitoredBehaviors.remove(behavior) && matcher != null) {
+				disposeNetworks(behavior);
+			}
+		}
 	}
 
 	/**
-	 * Returns the agent's working memory. 
+	 * Parks a wait step whose conditions are not satisfied. The step is removed from the open 
+	 * nodes until a WME of a class referenced by its conditions changes. 
 	 */
-	public WorkingMemory getWorkingMemory() {
-		return workingMemory;
-	} 
- 	 
+	private void parkWaitStep(WaitStepNode waitStep) {
+		waitStep.setParked(true);
+		openNodes.remove(waitStep);
+		
+		for (ConditionPrototype condition : waitStep.getWaitConditions()) {
+			LinkedHashSet<WaitStepNode> waitSteps = parkedWaitSteps.get(condition.getWMEClass());
+			if (waitSteps == null) {
+				waitSteps = new LinkedHashSet<WaitStepNode>();
+				parkedWaitSteps.put(condition.getWMEClass(), waitSteps);
+			}
+			
+			waitSteps.add(waitStep);
+		}
+	}
+
 	/**
-	 * Performs an ABL decision cycle, or tick. The following tasks are performed 
-	 * during a decision cycle:
-	 *  1. Notify executing actions that a decision cycle is being performed 
-	 *  2. Success and context conditions are tested. 
-	 *  3. Subtrees attached to completed nodes are pruned.
-	 *  4. Completed nodes are removed from the ABT. 
-	 *  5. Open nodes are retrieved.
-	 *  6. The highest priority open node is expanded. 
-	 *  
-	 * @return true if the ABT was expanded 
+	 * Removes a wait step from the parked wait steps. 
 	 */
-	public boolean update() {
-		
-		// tree finished?
-		if (rootNodes.size() == 0) {
-			return false; 
-		} 
+	private void unparkWaitStep(WaitStepNode waitStep) {
+		waitStep.setParked(false);
 		
-		// 1. notify executing actions 
-		for (ABTNode root : rootNodes) {
-			notifyExecutingActions(root);
-		} 
-  		 
-		// 2. test success conditions and context conditions
-		for (ABTNode root : rootNodes) {
-			testBehaviorCondtions(root);
-		}
- 
-		// 3. clear subtrees attached to completed parents 
-		for (ABTNode root : rootNodes) {
-			pruneTree(root);
+		for (ConditionPrototype condition : waitStep.getWaitConditions()) {
+			LinkedHashSet<WaitStepNode> waitSteps = parkedWaitSteps.get(condition.getWMEClass());
+			if (waitSteps != null) {
+				waitSteps.remove(waitStep);
+			}
 		}
-		 
-		// 4. find completed nodes
-		ArrayList<ABTNode> completed = new ArrayList<ABTNode>();		
-		for (ABTNode root : rootNodes) {
-			findCompletedNodes(root, completed);
+	}
+
+	/**
+	 * Wakes the wait steps parked on the class of the WME, or its super classes. Woken wait 
+	 * steps are re-evaluated when they are next reached in the open nodes. 
+	 */
+	private void wakeWaitSteps(WME wme) {
+		if (parkedWaitSteps.isEmpty()) {
+			return;
 		}
-  
-		for (ABTNode node : completed) {
-			ABTNode parent = node.getParent();
+		
+		for (Class wmeClass = wme.getClass(); wmeClass != null && !wmeClass.equals(Object.class); wmeClass = wmeClass.getSuperclass()) {
+			LinkedHashSet<WaitStepNode> waitSteps = parkedWaitSteps.get(wmeClass);
 			
-			if (parent == null) {
-				rootNodes.remove(node);
- 				 
-				if (rootNodes.size() == 0) {
-					return false; 
+			if (waitSteps != null && !waitSteps.isEmpty()) {
+				for (WaitStepNode waitStep : new ArrayList<WaitStepNode>(waitSteps)) {
+					unparkWaitStep(waitStep);
+					dirtyNodes.add(waitStep);
 				}
-			}  
-			else {  
-				parent.removeChild(node);
-				parent.childCompleted(node);
 			}
 		}
+	}
 
-		// 5. find open nodes
-		ArrayList<ABTNode> open = new ArrayList<ABTNode>();		
-		for (ABTNode root : rootNodes) {
-			findOpenNodes(root, open);
-		} 
-		
-		// 6. expand open nodes
-		Collections.sort(open, priorityComparator);
-		
-		for (ABTNode node : open) {
-			if (expand(node)) {
-				return true;
+	/**
+	 * Wakes the parked wait steps of a behavior, after a behavior variable changes. 
+	 */
+	private void wakeWaitSteps(BehaviorNode behavior) {
+		for (ABTNode child : behavior.getChildren()) {
+			if (child instanceof WaitStepNode && ((WaitStepNode)child).isParked()) {
+				unparkWaitStep((WaitStepNode)child);
+				dirtyNodes.add(child);
 			}
 		}
-		
-		// no new nodes were expanded 
-		return false; 
 	}
 
-	public Iterable<ABTNode> getRoots() {
-		return rootNodes;
+	/**
+	 * Wakes all parked wait steps. 
+	 */
+	private void wakeAllWaitSteps() {
+		for (LinkedHashSet<WaitStepNode> waitSteps : new ArrayList<LinkedHashSet<WaitStepNode>>(parkedWaitSteps.values())) {
+			for (WaitStepNode waitStep : new ArrayList<WaitStepNode>(waitSteps)) {
+				unparkWaitStep(waitStep);
+				dirtyNodes.add(waitStep);
+			}
+		}
+		
+		parkedWaitSteps.clear();
 	}
 
 	/**
-	 * Notify executing actions that a decision cycle is being performed. 
+	 * Returns true if a wait step can be parked: incremental matching is enabled and the 
+	 * conditions only depend on working memory and behavior variables. 
+	 * 
+	 * Parked wait steps are woken when a mental act or action binds a result to a behavior 
+	 * variable, but not when the behavior's other conditions bind variables. Wait steps that 
+	 * test variables bound by the success or context conditions, or by other wait steps, of 
+	 * the behavior are re-evaluated each decision cycle instead. 
 	 */
-	private void notifyExecutingActions(ABTNode node) {
-		if (node.isExecuting() && node instanceof ActionNode) {
-			actionListener.onUpdate((ActionNode)node); 
+	private boolean canPark(WaitStepNode waitStep) {
+		if (matcher == null) {
+			return false;
 		}
 		
-		// iterate through child nodes 
-		for (ABTNode child : node.getChildren()) {
-			notifyExecutingActions(child);
+		HashSet<String> tested = new HashSet<String>();
+		for (ConditionPrototype condition : waitStep.getWaitConditions()) {
+			if (!condition.isWMECheck() && !condition.isNegationCheck()) {
+				return false;
+			}
+			
+			tested.addAll(condition.getTestVariables());
 		}
-	} 
-	
+		
+		if (tested.isEmpty()) {
+			return true;
+		}
+		
+		BehaviorPrototype prototype = ((BehaviorNode)waitStep.getParent()).getPrototype();
+		if (bindsAny(prototype.getContextConditions(), tested) || bindsAny(prototype.getsuccessConditions(), tested)) {
+			return false;
+		}
+		
+		if (prototype.getSteps() != null) {
+			for (StepPrototype step : prototype.getSteps()) {
+				if (step.getWaitConditions() != waitStep.getWaitConditions() && bindsAny(step.getWaitConditions(), tested)) {
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+
 	/**
-	 * Evaluates the success conditions and context conditions of executing behaviors. 
+	 * Returns true if any of the conditions bind one of the variables. 
 	 */
-	private void testBehaviorCondtions(ABTNode node) {
-		if (node instanceof BehaviorNode && node.isExecuting()) {
-			BehaviorNode behavior = (BehaviorNode)node;
-			 
-			// Behaviors with satisfied success conditions immediately succeed.
-			if (behavior.getSuccessConditions().size() > 0) {
-				if (checkConditions(behavior.getVariables(), behavior.getSuccessConditions(), 0)) {
-					behavior.setStatus(NodeStatus.Success);
-				}
+	private static boolean bindsAny(ArrayList<ConditionPrototype> conditions, HashSet<String> names) {
+		if (conditions == null) {
+			return false;
+		}
+		
+		for (ConditionPrototype condition : conditions) {
+			if (!condition.isWMECheck()) {
+				continue;
 			}
- 			 
-			// Behaviors with unsatisfied context conditions immediately fail.
-			if (behavior.getContextConditions().size() > 0) {
-				if (!checkConditions(behavior.getVariables(), behavior.getContextConditions(), 0)) {
-					behavior.setStatus(NodeStatus.Failure);
+			
+			if (condition.getWMEVariable() != null && names.contains(condition.getWMEVariable())) {
+				return true;
+			}
+			
+			for (String name : condition.getBindings().values()) {
+				if (names.contains(name)) {
+					return true;
 				}
 			}
 		}
+		
+		return false;
+	}
 
-		// iterate through child nodes 
-		for (ABTNode child : node.getChildren()) {
-			testBehaviorCondtions(child);
-		}			
+	/**
+	 * Schedules a timer that fails the node if it has not completed when its timeout elapses. 
+	 */
+	private void scheduleTimeout(final ABTNode node) {
+		node.setTimeoutTimer(timers.schedule(getTime() + node.getTimeout(), new Runnable() {
+			public void run() {
+				if (node.isAttached() && !node.isCompleted()) {
+					node.setStatus(NodeStatus.Failure);
+				}
+			}
+		}));
 	}
-	
+
 	/**
-	 * Searches for completed nodes with active children. Children of completed
-	 * nodes are aborted. 
+	 * Removes the node from all node sets, and cancels its timeout. 
 	 */
-	private void pruneTree(ABTNode node) {
-		if (node.isCompleted() && node.getNumChildren() > 0) {
+	private void unindexNode(ABTNode node) {
+		if (node.getTimeoutTimer() != null) {
+			timers.cancel(node.getTimeoutTimer());
+			node.setTimeoutTimer(null);
+		}
 
-			for (ABTNode child : node.getChildren()) {
-				abortTree(child);
-			}
-			
-			node.clearChildren();
+		if (node instanceof WaitStepNode && ((WaitStepNode)node).isParked()) {
+			unparkWaitStep((WaitStepNode)node);
 		}
 		
-		// iterate through child nodes 
-		for (ABTNode child : node.getChildren()) {
-			pruneTree(child);
-		}
-	} 
- 
-	/** 
-	 * Tells the node to abort all children. 
-	 * 
-	 * If the node is an action, then the action is aborted. 
-	 */
-	private void abortTree(ABTNode node) {
-		for (ABTNode child : node.getChildren()) {
-			abortTree(child);
-		} 
+		openNodes.remove(node);
+		completedNodes.remove(node);
+		executingActions.remove(node);
 		
-		if (node instanceof ActionNode) {
-			this.actionListener.abort((ActionNode)node); 
+		if (monitoredBehaviors.remove(node) && matcher != null) {
+			disposeNetworks((BehaviorNode)node);
 		}
 	}
 
 	/**
-	 * Finds completed nodes in the ABT. 
+	 * Returns the highest priority open node, or null if there are no open nodes. 
 	 */
-	private void findCompletedNodes(ABTNode node, ArrayList<ABTNode> completed) {
+	private ABTNode firstOpenNode() {
+		return openNodes.isEmpty() ? null : openNodes.first();
+	}
 
-		if (node.getNumChildren() > 0) {
-			for (ABTNode child : node.getChildren()) {
-				findCompletedNodes(child, completed);
-			}			
-		}
-		else if (node.isCompleted()) {
-			completed.add(node);
-		}
-	}  
-	  
 	/**
-	 * Finds open nodes in the ABT. 
+	 * Returns true if an ancestor of the node has completed. 
 	 */
-	private void findOpenNodes(ABTNode node, ArrayList<ABTNode> available) {
-		if (node.isSuccess() || node.isFailure()) {
-			return;
-		}
-		
-		if (node.isOpen()) {
-			available.add(node);
+	private boolean hasCompletedAncestor(ABTNode node) {
+		for (ABTNode parent = node.getParent(); parent != null; parent = parent.getParent()) {
+			if (parent.isCompleted()) {
+				return true;
+			}
 		}
 		
-		for (ABTNode child : node.getChildren()) {
-			findOpenNodes(child, available);
-		}
+		return false;
+	}
+
+	/**
+	 * Adds a root node to the ABT. 
+	 */
+	private void addRoot(ABTNode root) {
+		rootNodes.add(root);
+		root.attach(abtListener);
 	}
 
 	/**
@@ -321,17 +1278,12 @@ public class Agent {
 	 * Throws an error if the node has no enclosing behavior. 
 	 */
 	private void setVariable(ABTNode node, String name, Object value) {
-	
- 		// get the parent behavior 
-		while (node != null && !(node instanceof BehaviorNode)) {
-			node = node.getParent();
-		}
+		BehaviorNode behavior = getBehavior(node);
+		behavior.setVariable(name, value);
 		
-		if (node == null) {
-			throw new ABTRuntimeError("Step has no parent behavior");  
+		if (!parkedWaitSteps.isEmpty()) {
+			wakeWaitSteps(behavior);
 		}
- 	 	 
-		((BehaviorNode)node).setVariable(name, value);
 	}
  
 	/**
@@ -339,7 +1291,16 @@ public class Agent {
 	 * 
 	 * Throws an error if the node has no enclosing behavior. 
 	 */
-	private Object getVariable(ABTNode node, String name) {
+	private Object getVariable(ABTNode node, Variable variable) {
+		return getBehavior(node).getVariable(variable);
+	}
+
+	/**
+	 * Returns the node's enclosing behavior. 
+	 * 
+	 * Throws an error if the node has no enclosing behavior. 
+	 */
+	private BehaviorNode getBehavior(ABTNode node) {
 
  		// get the parent behavior 
 		while (node != null && !(node instanceof BehaviorNode)) {
@@ -350,7 +1311,7 @@ public class Agent {
 			throw new ABTRuntimeError("Step has no parent behavior");  
 		}
 		 
-		return ((BehaviorNode)node).getVariable(name);
+		return (BehaviorNode)node;
 	}
 
 	/**
@@ -364,7 +1325,7 @@ public class Agent {
  		 
 		for (int index=0; index<parameters.length; index++) {
 			executionParameters[index] = (parameters[index] instanceof Variable) ? 
-				getVariable(node, (((Variable)parameters[index]).getName())) : parameters[index];
+				getVariable(node, (Variable)parameters[index]) : parameters[index];
 		}
   
 		return executionParameters;
@@ -409,7 +1370,16 @@ public class Agent {
 	 */
 	private boolean expandMentalAct(MentalActNode mentalAct) {
 		
-		mentalAct.execute(bindVariables(mentalAct, mentalAct.getPrototypeParameters()));
+		if (mentalAct.getMentalAct() != null) {
+			mentalAct.execute(getBehavior(mentalAct).getVariables());
+		}
+		else {
+			if (metrics != null) {
+				metrics.reflectiveInvocation();
+			}
+			
+			mentalAct.execute(bindVariables(mentalAct, mentalAct.getPrototypeParameters()));
+		}
 
 		if (mentalAct.getResultBinding() != null) {
 			setVariable(mentalAct, mentalAct.getResultBinding(), mentalAct.getResult()); 			
@@ -420,15 +1390,21 @@ public class Agent {
 
 	/**
 	 * Expands a wait step by checking the wait conditions. If the conditions are met then the step success,
-	 * otherwise the step remains open. 
+	 * otherwise the step remains open. With incremental matching, a wait step with unsatisfied conditions 
+	 * is parked until working memory changes. 
 	 */
 	private boolean expandWaitStep(WaitStepNode waitStep) {
  
-		if (checkConditions(((BehaviorNode)waitStep.getParent()).getVariables(), waitStep.getWaitConditions(), 0)) {
+		BehaviorNode behavior = (BehaviorNode)waitStep.getParent();
+		if (testConditions("Wait", behavior.getGoalName(), behavior.getVariables(), waitStep.getWaitConditions(), null)) {
 			waitStep.setStatus(NodeStatus.Success);
 			return true; 
 		}
 		else {
+			if (canPark(waitStep)) {
+				parkWaitStep(waitStep);
+			}
+			
 			return false; 
 		}
  	}
@@ -440,9 +1416,8 @@ public class Agent {
 		modifier.setStatus(NodeStatus.Executing); 						
 		
 		ABTNode child = modifier.createABTNode();
-		modifier.addChild(child);
-		child.setParent(modifier); 
 		child.setPriority(modifier.getPriority());
+		modifier.addChild(child);
 		
 		return true;
 	}
@@ -453,11 +1428,41 @@ public class Agent {
 	private boolean expandAction(ActionNode action) {
  
 		action.bindParameters(bindVariables(action, action.getPrototypeParameters())); 
+		action.setCompletionQueue(completedActions);
 		action.setStatus(NodeStatus.Executing); 						
-		actionListener.execute(action);
+
+		if (metrics != null) {
+			metrics.actionDispatched();
+		}
+
+		Object event = recorder.beginActionExecute();
+
+		if (actionListener != null) {
+			actionListener.execute(action);
+		}
+		else {
+			executeAsync(action);
+		}
+		
+		recorder.endActionExecute(event, action.getActionName(), action.getExecutionParameters().length);
+		
 		return true;
 	}
 
+	/**
+	 * Executes an action with the asynchronous action listener, and posts the completion of the 
+	 * returned stage to the completion queue. 
+	 */
+	private void executeAsync(final ActionNode action) {
+		CompletionStage<?> completion = asyncActionListener.execute(action);
+		
+		completion.whenComplete(new BiConsumer<Object, Throwable>() {
+			public void accept(Object result, Throwable error) {
+				action.complete(error == null, result);
+			}
+		});
+	}
+
 	/**
 	 * Expands a parallel behavior by adding all child steps to the ABT. 
 	 */
@@ -511,13 +1516,12 @@ public class Agent {
 			// bind the parameters now, since the spawned goal will not have a parent behavior 
 			((SpawnGoalNode)step).setParameters(bindVariables(behavior, ((SpawnGoalNode)step).getParameters()));
  			
-			rootNodes.add(step);
+			addRoot(step);
 			behavior.childCompleted(step);
 		}
 		// add the step to the ABL 
 		else {
 			behavior.addChild(step);
-			step.setParent(behavior); 			
 		}
 	}
  
@@ -526,58 +1530,58 @@ public class Agent {
 	 * 
 	 * Expanding a goal involves the following tasks:
 	 *  1. Bind goal parameters to behavior variables
-	 *  2. Find behaviors with matching signature.
-	 *  3. Sort matching behaviors by specificity 
-	 *  4. Attempt to expand behaviors
+	 *  2. Retrieve candidate behaviors, which the library has sorted by specificity 
+	 *  3. Attempt to expand behaviors with a matching signature 
 	 */
 	private boolean expandGoal(GoalNode goal) {
+		Object event = recorder.beginGoalExpansion();
 
 		// 1. bind goal parameters (note: spawngoal variables will already be bound) 
 		Object[] goalParameters = bindVariables(goal, goal.getParameters());
 
-		// 2. find matching behaviors in the library 
-		ArrayList<BehaviorPrototype> matching = new ArrayList<BehaviorPrototype>();
-		for (BehaviorPrototype prototype : behaviorLibrary) {
-			if (prototype.matchingSignature(goal.getGoalName(), goalParameters)) {
-
-				// dont retry behaviors for the same goal 
-				if (!goal.hasAttempted(prototype)) {
-					matching.add(prototype);
-				}
-			}  
-		}
+		// 2. find candidate behaviors in the library 
+		ArrayList<BehaviorPrototype> candidates = behaviorLibrary.getCandidates(goal.getGoalName(), goalParameters.length);
+		int tested = 0;
   
-		// 3. sort by specificity  
-		Collections.sort(matching, specificityComparator); 
-  
-		// 4. expand the first matching behavior 
-		for (BehaviorPrototype prototype : matching) {
+		// 3. expand the first matching behavior 
+		for (BehaviorPrototype prototype : candidates) {
+			if (!prototype.matchingSignature(goal.getGoalName(), goalParameters)) {
+				continue; 
+			}
+
+			// dont retry behaviors for the same goal 
+			if (goal.hasAttempted(prototype)) {
+				continue; 
+			}
  
 			// match goal parameters to behavior variables 
-			HashMap<String, Object> variables = prototype.bindVariables(goalParameters); 
+			VariableFrame variables = prototype.bindVariables(goalParameters); 
 			 
 			// check preconditions
-			if (!checkConditions(variables, prototype.getPreconditions(), 0)) {
+			tested++;
+			if (!testConditions("Precondition", prototype.getGoalName(), variables, prototype.getPreconditions(), null)) {
 				continue; 
 			}
    
 			// expand the behavior 
 			BehaviorNode behavior = prototype.isSequential() ? new SequentialNode(prototype, variables) : new ParallelNode(prototype, variables);
-			behavior.setParent(goal);
+			behavior.setPriority(goal.getPriority()); 
 			goal.addChild(behavior); 
 			goal.attemptingBehavior(prototype);
 
-			behavior.setPriority(goal.getPriority()); 
-			behavior.setVariables(variables);			
 			goal.setStatus(NodeStatus.Executing); 						
+			
+			recorder.behaviorSelected(prototype.getGoalName(), prototype.getSpecificity(), prototype.isSequential());
+			recorder.endGoalExpansion(event, goal.getGoalName(), goal.getParameters().length, candidates.size(), tested, true);
 			return true;
 		}  
 		  
 		// no matching behaviors found 
 		goal.setStatus(NodeStatus.Failure); 						
+		recorder.endGoalExpansion(event, goal.getGoalName(), goal.getParameters().length, candidates.size(), tested, false);
 		return false;
 	}
-  
+
 	/**
 	 * Evaluates a list of conditions. There are 3 types of conditions: 
 	 *  1. WME conditions check for the existence of a WME that matches a set of tests. These conditions can
@@ -586,13 +1590,16 @@ public class Agent {
 	 *  3. Mental conditions that invoke a Java method. The method must return a boolean and no bindings are possible. 
 	 * 
 	 * This method is recursive, because different WME bindings can be evaluated while testing conditions. 
+	 * WME and negation conditions only test candidate WMEs, which are retrieved using hash indexes in 
+	 * working memory when available. 
 	 * 
 	 * @param variables - variables defined in the enclosing behavior 
 	 * @param conditions - list of conditions to evaluate
 	 * @param index - the index of the condition to test 
+	 * @param plan - the plan that ordered the conditions, which records the matches of WME conditions (null if not planned)
 	 * @return true if all conditions evaluate to true 
 	 */  
-	private boolean checkConditions(HashMap<String, Object> variables, ArrayList<ConditionPrototype> conditions, int index) { 
+	private boolean checkConditions(VariableFrame variables, ArrayList<ConditionPrototype> conditions, int index, ConditionPlanner.Plan plan) { 
   
 		// all conditions are satisfied 
 		if (index == conditions.size()) {
@@ -601,34 +1608,40 @@ public class Agent {
 
 		// retrieve the current condition to evaluate. 
 		ConditionPrototype condition = conditions.get(index);
+		
+		if (metrics != null) {
+			metrics.conditionEvaluated();
+		}
  
 		// check for the existence of a WME 
 		if (condition.isWMECheck()) {
  			  
-			HashSet<WME> wmes = workingMemory.getWMEs(condition.getWMEClass());
+			int matched = 0;
+			Collection<WME> wmes = condition.getCandidateWMEs(workingMemory, variables);
 			for (WME wme : wmes) {
+				if (metrics != null) {
+					metrics.wmeScanned();
+				}
 
 				// check if the wme conditions match 
 				if (!condition.testWME(wme, variables)) {
 					continue; 
 				}
 				
-				// bind properties
-				HashMap<String, String> bindings = condition.getBindings();
-				for (String attribute : bindings.keySet()) {
-					variables.put(bindings.get(attribute), wme.getAttribute(attribute));
-				} 
-  
-				// bind wme instance to a property
-				if (condition.getWMEVariable() != null) {
-					variables.put(condition.getWMEVariable(), wme);
-				} 
+				// bind properties and the wme instance 
+				matched++;
+				condition.bindWME(wme, variables);
  				 
 				// recurse!!! 
-				if (checkConditions(variables, conditions, index + 1)) {
+				if (checkConditions(variables, conditions, index + 1, plan)) {
 					return true;
 				}					
 			}
+			
+			// only record exhaustive scans, the search stops at the first complete match 
+			if (plan != null) {
+				plan.visited(index, matched);
+			}
 			  
 			// no valid WMEs found 
 			return false; 
@@ -636,8 +1649,11 @@ public class Agent {
 		// check for lack of a WME 
 		else if (condition.isNegationCheck()) {
 
-			HashSet<WME> wmes = workingMemory.getWMEs(condition.getWMEClass());
+			Collection<WME> wmes = condition.getCandidateWMEs(workingMemory, variables);
 			for (WME wme : wmes) {
+				if (metrics != null) {
+					metrics.wmeScanned();
+				}
 				  
 				// fail if conditions match 
 				if (condition.testWME(wme, variables)) {
@@ -646,14 +1662,18 @@ public class Agent {
 			}
   
 			// recurse!!! 
-			return checkConditions(variables, conditions, index + 1);
+			return checkConditions(variables, conditions, index + 1, plan);
 		}  
 		// mental condition 
 		else {
 			
 			// execute the mental condition 
+			if (metrics != null && condition.getMethodName() != null) {
+				metrics.reflectiveInvocation();
+			}
+			
 			if (condition.execute(variables)) {
-				return checkConditions(variables, conditions, index + 1);
+				return checkConditions(variables, conditions, index + 1, plan);
 			}
 			else {
 				return false; 
@@ -0,0 +1,421 @@
+package microabl;
+
+import java.util.Arrays;
+/**
+ * Records what an agent does in each decision cycle: the nodes visited and the time spent in
+ * each phase of the cycle, the number of open nodes, and counts of expansions, condition
+ * evaluations, memoized condition hits and misses, WMEs scanned, reflective method
+ * invocations, and actions dispatched. Time-budgeted updates also record how often the budget
+ * suspended a decision cycle. Time between the updates of a suspended cycle is not counted
+ * towards the cycle or phase times.
+ *
+ * Metrics are enabled by passing an instance to Agent.setMetrics, and an agent without metrics
+ * does not read the clock or update counters. An instance should only be used by one agent.
+ * Values are written by the thread that updates the agent without synchronization, so a
+ * monitoring thread that samples them may see values that are a decision cycle out of date.
+ */
+public class AgentMetrics {
+
+	/**
+	 * Phases of a decision cycle.
+	 */
+	public enum Phase {
+		/** running expired timers and applying action completions */
+		Completions,
+		/** notifying executing actions */
+		Actions,
+		/** testing success and context conditions */
+		Conditions,
+		/** pruning subtrees of completed nodes */
+		Prune,
+		/** removing completed nodes */
+		Complete,
+		/** expanding open nodes */
+		Expand
+	}
+
+	/** number of decision cycles */
+	private long cycles;
+
+	/** number of decision cycles that expanded the ABT */
+	private long expandedCycles;
+
+	/** number of nodes expanded */
+	private long expansions;
+
+	/** number of conditions evaluated by searching working memory or invoking a mental condition */
+	private long conditionEvaluations;
+
+	/** number of condition lists whose result was memoized */
+	private long memoHits;
+
+	/** number of memoizable condition lists that were evaluated */
+	private long memoMisses;
+
+	/** number of candidate WMEs tested by condition evaluations */
+	private long wmesScanned;
+
+	/** number of mental conditions and mental acts invoked by reflection */
+	private long reflectiveInvocations;
+
+	/** number of actions sent to the action listener */
+	private long actionsDispatched;
+
+	/** number of times a decision cycle was suspended because the time budget was spent */
+	private long suspensions;
+
+	/** number of decision cycles that were suspended at least once */
+	private long suspendedCycles;
+
+	/** number of suspensions in each phase, indexed by phase ordinal */
+	private long[] phaseSuspensions = new long[Phase.values().length];
+
+	/** nodes visited in each phase, indexed by phase ordinal */
+	private long[] nodesVisited = new long[Phase.values().length];
+
+	/** time spent in each phase, in nanoseconds, indexed by phase ordinal */
+	private Histogram[] phaseTimes = new Histogram[Phase.values().length];
+
+	/** time spent in each decision cycle, in nanoseconds */
+	private Histogram cycleTimes = new Histogram();
+
+	/** number of open nodes at the end of each decision cycle */
+	private Histogram openNodes = new Histogram();
+
+	/** start of the current decision cycle */
+	private long cycleStart;
+
+	/** start of the current phase */
+	private long phaseStart;
+
+	/** time spent in the current decision cycle before it was last suspended */
+	private long cycleElapsed;
+
+	/** time spent in the current phase before it was last suspended */
+	private long phaseElapsed;
+
+	/** true if the current decision cycle was suspended */
+	private boolean suspended;
+
+	public AgentMetrics() {
+		for (int index=0; index<phaseTimes.length; index++) {
+			phaseTimes[index] = new Histogram();
+		}
+	}
+
+	/**
+	 * Starts recording a decision cycle.
+	 */
+	void beginCycle() {
+		cycleStart = System.nanoTime();
+		phaseStart = cycleStart;
+	}
+
+	/**
+	 * Records the end of a phase of the current decision cycle. The next phase starts when
+	 * this one ends.
+	 *
+	 * @param phase - the phase that ended
+	 * @param visited - the number of nodes visited in the phase
+	 */
+	void endPhase(Phase phase, int visited) {
+		long time = System.nanoTime();
+		nodesVisited[phase.ordinal()] += visited;
+		phaseTimes[phase.ordinal()].record(phaseElapsed + time - phaseStart);
+		phaseStart = time;
+		phaseElapsed = 0;
+	}
+
+	/**
+	 * Records the suspension of the current decision cycle because the time budget was spent.
+	 *
+	 * @param phase - the phase the cycle resumes from
+	 * @param visited - the number of nodes visited in the phase before it was suspended
+	 */
+	void suspendCycle(Phase phase, int visited) {
+		long time = System.nanoTime();
+		nodesVisited[phase.ordinal()] += visited;
+		phaseSuspensions[phase.ordinal()]++;
+		suspensions++;
+
+		cycleElapsed += time - cycleStart;
+		phaseElapsed += time - phaseStart;
+		suspended = true;
+	}
+
+	/**
+	 * Resumes recording a suspended decision cycle.
+	 */
+	void resumeCycle() {
+		cycleStart = System.nanoTime();
+		phaseStart = cycleStart;
+	}
+
+	/**
+	 * Records the end of the current decision cycle.
+	 *
+	 * @param open - the number of open nodes
+	 * @param expanded - true if the ABT was expanded
+	 */
+	void endCycle(int open, boolean expanded) {
+		cycleTimes.record(cycleElapsed + System.nanoTime() - cycleStart);
+		openNodes.record(open);
+		cycles++;
+		cycleElapsed = 0;
+
+		if (suspended) {
+			suspendedCycles++;
+			suspended = false;
+		}
+
+		if (expanded) {
+			expandedCycles++;
+		}
+	}
+
+	void nodeExpanded() {
+		expansions++;
+	}
+
+	void conditionEvaluated() {
+		conditionEvaluations++;
+	}
+
+	void memoHit() {
+		memoHits++;
+	}
+
+	void memoMiss() {
+		memoMisses++;
+	}
+
+	void wmeScanned() {
+		wmesScanned++;
+	}
+
+	void reflectiveInvocation() {
+		reflectiveInvocations++;
+	}
+
+	void actionDispatched() {
+		actionsDispatched++;
+	}
+
+	public long getCycles() {
+		return cycles;
+	}
+
+	public long getExpandedCycles() {
+		return expandedCycles;
+	}
+
+	public long getExpansions() {
+		return expansions;
+	}
+
+	public long getConditionEvaluations() {
+		return conditionEvaluations;
+	}
+
+	/**
+	 * Returns the number of condition lists whose memoized result was used.
+	 */
+	public long getMemoHits() {
+		return memoHits;
+	}
+
+	/**
+	 * Returns the number of memoizable condition lists that had to be evaluated.
+	 */
+	public long getMemoMisses() {
+		return memoMisses;
+	}
+
+	public long getWMEsScanned() {
+		return wmesScanned;
+	}
+
+	public long getReflectiveInvocations() {
+		return reflectiveInvocations;
+	}
+
+	public long getActionsDispatched() {
+		return actionsDispatched;
+	}
+
+	/**
+	 * Returns the number of times a time-budgeted update suspended a decision cycle.
+	 */
+	public long getSuspensions() {
+		return suspensions;
+	}
+
+	/**
+	 * Returns the number of decision cycles that took more than one update to finish.
+	 */
+	public long getSuspendedCycles() {
+		return suspendedCycles;
+	}
+
+	/**
+	 * Returns the number of times a decision cycle was suspended in a phase.
+	 */
+	public long getSuspensions(Phase phase) {
+		return phaseSuspensions[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the number of nodes visited in a phase, over all decision cycles.
+	 */
+	public long getNodesVisited(Phase phase) {
+		return nodesVisited[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the time spent in a phase per decision cycle, in nanoseconds.
+	 */
+	public Histogram getPhaseTimes(Phase phase) {
+		return phaseTimes[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the time spent per decision cycle, in nanoseconds.
+	 */
+	public Histogram getCycleTimes() {
+		return cycleTimes;
+	}
+
+	/**
+	 * Returns the number of open nodes at the end of each decision cycle.
+	 */
+	public Histogram getOpenNodes() {
+		return openNodes;
+	}
+
+	/**
+	 * Clears all counters and histograms, e.g. after the metrics are sampled.
+	 */
+	public void reset() {
+		cycles = 0;
+		expandedCycles = 0;
+		expansions = 0;
+		conditionEvaluations = 0;
+		memoHits = 0;
+		memoMisses = 0;
+		wmesScanned = 0;
+		reflectiveInvocations = 0;
+		actionsDispatched = 0;
+		suspensions = 0;
+		suspendedCycles = 0;
+		Arrays.fill(nodesVisited, 0);
+		Arrays.fill(phaseSuspensions, 0);
+
+		for (Histogram histogram : phaseTimes) {
+			histogram.reset();
+		}
+
+		cycleTimes.reset();
+		openNodes.reset();
+	}
+
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		text.append("cycles: " + cycles + " (expanded " + expandedCycles + ")\n");
+		text.append("expansions: " + expansions + "\n");
+		text.append("condition evaluations: " + conditionEvaluations + "\n");
+		text.append("memo hits: " + memoHits + ", misses: " + memoMisses + "\n");
+		text.append("WMEs scanned: " + wmesScanned + "\n");
+		text.append("reflective invocations: " + reflectiveInvocations + "\n");
+		text.append("actions dispatched: " + actionsDispatched + "\n");
+		text.append("suspensions: " + suspensions + " (cycles " + suspendedCycles + ")\n");
+		text.append("open nodes: " + openNodes + "\n");
+		text.append("cycle time (ns): " + cycleTimes + "\n");
+
+		for (Phase phase : Phase.values()) {
+			text.append(phase + ": visited " + nodesVisited[phase.ordinal()] + ", suspended " + phaseSuspensions[phase.ordinal()] +
+					", time (ns) " + phaseTimes[phase.ordinal()] + "\n");
+		}
+
+		return text.toString();
+	}
+
+	/**
+	 * A histogram of non-negative values with power of two buckets. Recording a value is
+	 * constant time and does not allocate. Percentiles are reported as the upper bound of the
+	 * bucket that contains them, so they are accurate to within a factor of two.
+	 */
+	public static class Histogram {
+
+		/** number of values in each bucket, bucket i holds values below 2^i */
+		private long[] buckets = new long[64];
+
+		/** number of recorded values */
+		private long count;
+
+		/** sum of the recorded values */
+		private long sum;
+
+		/** largest recorded value */
+		private long max;
+
+		/**
+		 * Records a value. Negative values are recorded as 0.
+		 */
+		public void record(long value) {
+			value = Math.max(0, value);
+			buckets[Math.min(63, 64 - Long.numberOfLeadingZeros(value))]++;
+			count++;
+			sum += value;
+			max = Math.max(max, value);
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getSum() {
+			return sum;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Returns the mean of the recorded values, or 0 if no values are recorded.
+		 */
+		public double getMean() {
+			return (count == 0) ? 0 : (double)sum / count;
+		}
+
+		/**
+		 * Returns an upper bound of the given percentile (0-100) of the recorded values, or 0
+		 * if no values are recorded.
+		 */
+		public long getPercentile(double percentile) {
+			long rank = (long)Math.ceil(count * percentile / 100.0);
+			long seen = 0;
+
+			for (int index=0; index<buckets.length; index++) {
+				seen += buckets[index];
+				if (seen >= rank && seen > 0) {
+					return Math.min(max, (index == 0) ? 0 : (1L << index) - 1);
+				}
+			}
+
+			return max;
+		}
+
+		public void reset() {
+			Arrays.fill(buckets, 0);
+			count = 0;
+			sum = 0;
+			max = 0;
+		}
+
+		public String toString() {
+			return "count " + count + ", mean " + Math.round(getMean()) + ", p50 " + getPercentile(50) +
+					", p99 " + getPercentile(99) + ", max " + max;
+		}
+	}
+}
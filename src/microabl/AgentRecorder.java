@@ -0,0 +1,149 @@
+package microabl;
+
+import java.util.List;
+
+import microabl.prototype.ConditionPrototype;
+/**
+ * Receives the events of agent decision cycles for profiling.
+ *
+ * Agents use the recorder returned by getRecorder, which emits Java Flight Recorder events
+ * (see the microabl.jfr package) when the runtime provides the jdk.jfr module, and ignores
+ * events otherwise. The flight recorder classes are only loaded in the first case, so the
+ * core classes do not depend on jdk.jfr and run on Java 8 runtimes without it.
+ *
+ * Events that span part of a decision cycle are started by a begin method, which returns a
+ * handle (possibly null) that is passed to the matching end method. The methods of this
+ * class do nothing.
+ */
+public class AgentRecorder {
+
+	/** class name of the flight recorder implementation */
+	private static final String FlightRecorderClass = "microabl.jfr.FlightRecorderEvents";
+
+	/** the recorder used by agents */
+	private static final AgentRecorder recorder = load();
+
+	/**
+	 * Returns the recorder used by agents.
+	 */
+	public static AgentRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Loads the flight recorder implementation if jdk.jfr is available, or returns a recorder
+	 * that ignores events.
+	 */
+	private static AgentRecorder load() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return (AgentRecorder)Class.forName(FlightRecorderClass).getConstructor().newInstance();
+		}
+		catch (Exception e) {
+			return new AgentRecorder();
+		}
+		catch (LinkageError e) {
+			return new AgentRecorder();
+		}
+	}
+
+	/**
+	 * Starts an event spanning a decision cycle (Agent.update), or the part of a time-budgeted
+	 * decision cycle performed by an update.
+	 */
+	public Object beginCycle() {
+		return null;
+	}
+
+	/**
+	 * Ends a decision cycle event.
+	 *
+	 * @param event - the handle returned by beginCycle
+	 * @param expanded - true if the ABT was expanded
+	 * @param suspended - true if the cycle was suspended by a time budget
+	 * @param openNodes - the number of open nodes at the end of the cycle
+	 * @param rootNodes - the number of root nodes at the end of the cycle
+	 */
+	public void endCycle(Object event, boolean expanded, boolean suspended, int openNodes, int rootNodes) {
+	}
+
+	/**
+	 * Starts an event spanning the selection of a behavior for a goal.
+	 */
+	public Object beginGoalExpansion() {
+		return null;
+	}
+
+	/**
+	 * Ends a goal expansion event.
+	 *
+	 * @param event - the handle returned by beginGoalExpansion
+	 * @param goalName - the name of the goal
+	 * @param arity - the number of goal parameters
+	 * @param candidates - the number of candidate behaviors in the library
+	 * @param tested - the number of behaviors whose preconditions were tested
+	 * @param expanded - true if a behavior was selected
+	 */
+	public void endGoalExpansion(Object event, String goalName, int arity, int candidates, int tested, boolean expanded) {
+	}
+
+	/**
+	 * Records a behavior added to the ABT to pursue a goal.
+	 */
+	public void behaviorSelected(String goalName, int specificity, boolean sequential) {
+	}
+
+	/**
+	 * Records a failed behavior.
+	 */
+	public void behaviorFailed(String goalName, int specificity, boolean sequential) {
+	}
+
+	/**
+	 * Starts an event spanning the evaluation of a list of conditions.
+	 */
+	public Object beginConditions() {
+		return null;
+	}
+
+	/**
+	 * Ends a condition evaluation event.
+	 *
+	 * @param event - the handle returned by beginConditions
+	 * @param conditionList - Precondition, Success, Context or Wait
+	 * @param goalName - the goal name of the behavior prototype declaring the conditions
+	 * @param conditions - the conditions, in evaluation order
+	 * @param incremental - true if the conditions were matched by an incremental match network
+	 * @param memoized - true if the result was memoized
+	 * @param result - true if the conditions hold
+	 */
+	public void endConditions(Object event, String conditionList, String goalName, List<ConditionPrototype> conditions,
+			boolean incremental, boolean memoized, boolean result) {
+	}
+
+	/**
+	 * Starts an event spanning an action sent to the action listener.
+	 */
+	public Object beginActionExecute() {
+		return null;
+	}
+
+	/**
+	 * Ends an action execution event.
+	 */
+	public void endActionExecute(Object event, String actionName, int numParameters) {
+	}
+
+	/**
+	 * Starts an event spanning the abort of an executing action.
+	 */
+	public Object beginActionAbort() {
+		return null;
+	}
+
+	/**
+	 * Ends an action abort event.
+	 */
+	public void endActionAbort(Object event, String actionName) {
+	}
+}
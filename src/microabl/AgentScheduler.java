@@ -0,0 +1,270 @@
+package microabl;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import microabl.abt.ABTRuntimeError;
+/**
+ * Performs decision cycles for a collection of agents on a pool of worker threads.
+ *
+ * Each tick updates every scheduled agent once. Agents are partitioned into batches that are
+ * updated in parallel by a ForkJoinPool, and an agent performs decision cycles until the ABT
+ * is no longer expanded or the agent's tick budget (the maximum number of decision cycles per
+ * tick) is spent. The order in which agents are updated is rotated each tick, so agents added
+ * last are not always updated last.
+ *
+ * An agent is updated by at most one thread at a time: ticks do not overlap and each agent is
+ * assigned to a single batch in a tick. A scheduled agent can only be updated by its scheduler
+ * (Agent.update throws an error), so an application should not also update it from its own
+ * update loop, and an agent can only be added to one scheduler. Agents and their working
+ * memories should not be modified by other threads while a tick is performed. Agents can share
+ * a compiled BehaviorLibrary.
+ */
+public class AgentScheduler {
+
+	/** default number of agents updated by a task */
+	public static final int DefaultBatchSize = 32;
+
+	/** pool that performs the agent updates */
+	private final ForkJoinPool pool;
+
+	/** true if the pool was created by the scheduler */
+	private final boolean ownsPool;
+
+	/** scheduled agents, in the order they were added */
+	private ArrayList<ScheduledAgent> agents = new ArrayList<ScheduledAgent>();
+
+	/** scheduled agents, indexed by agent */
+	private IdentityHashMap<Agent, ScheduledAgent> scheduled = new IdentityHashMap<Agent, ScheduledAgent>();
+
+	/** number of agents updated by a task */
+	private int batchSize = DefaultBatchSize;
+
+	/** index of the agent updated first in the next tick */
+	private int offset = 0;
+
+	/**
+	 * Creates a scheduler with a pool that has a worker thread for each processor.
+	 */
+	public AgentScheduler() {
+		this.pool = new ForkJoinPool();
+		this.ownsPool = true;
+	}
+
+	/**
+	 * Creates a scheduler that updates agents using the given pool. The pool is not shut down
+	 * by the scheduler.
+	 */
+	public AgentScheduler(ForkJoinPool pool) {
+		this.pool = pool;
+		this.ownsPool = false;
+	}
+
+	/**
+	 * Adds an agent that performs at most one decision cycle per tick.
+	 */
+	public void addAgent(Agent agent) {
+		addAgent(agent, 1);
+	}
+
+	/**
+	 * Adds an agent to the scheduler, or changes the budget of an agent that is already scheduled.
+	 *
+	 * @param agent - the agent to update
+	 * @param budget - maximum number of decision cycles performed by the agent per tick
+	 */
+	public synchronized void addAgent(Agent agent, int budget) {
+		if (budget < 1) {
+			throw new ABTRuntimeError("Invalid tick budget: " + budget);
+		}
+
+		if (agent.scheduler != null && agent.scheduler != this) {
+			throw new ABTRuntimeError("Agent is already scheduled by another AgentScheduler");
+		}
+
+		ScheduledAgent entry = scheduled.get(agent);
+		if (entry == null) {
+			agent.scheduler = this;
+			entry = new ScheduledAgent(agent);
+			scheduled.put(agent, entry);
+			agents.add(entry);
+		}
+
+		entry.budget = budget;
+	}
+
+	/**
+	 * Removes an agent from the scheduler.
+	 *
+	 * @return true if the agent was scheduled
+	 */
+	public synchronized boolean removeAgent(Agent agent) {
+		ScheduledAgent entry = scheduled.remove(agent);
+		if (entry == null) {
+			return false;
+		}
+
+		agents.remove(entry);
+		agent.scheduler = null;
+		return true;
+	}
+
+	/**
+	 * Returns the number of scheduled agents.
+	 */
+	public synchronized int getNumAgents() {
+		return agents.size();
+	}
+
+	/**
+	 * Sets the number of agents updated by each task. Smaller batches balance load across
+	 * worker threads, larger batches have less scheduling overhead.
+	 */
+	public synchronized void setBatchSize(int batchSize) {
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Updates every scheduled agent, and returns when all agents have been updated. An error
+	 * thrown by an agent update does not stop the other agents from being updated. After the
+	 * tick, the first error is rethrown, with errors thrown by other agents added to it as
+	 * suppressed exceptions.
+	 *
+	 * @return the number of decision cycles performed
+	 */
+	public synchronized int tick() {
+		if (agents.isEmpty()) {
+			return 0;
+		}
+
+		// rotate the update order
+		ScheduledAgent[] order = new ScheduledAgent[agents.size()];
+		offset = offset % order.length;
+		for (int index=0; index<order.length; index++) {
+			order[index] = agents.get((offset + index) % order.length);
+		}
+		offset++;
+
+		pool.invoke(new UpdateTask(order, 0, order.length, batchSize));
+
+		int cycles = 0;
+		Throwable error = null;
+		for (ScheduledAgent entry : order) {
+			cycles += entry.cycles;
+
+			if (entry.error != null) {
+				if (error == null) {
+					error = entry.error;
+				}
+				else {
+					error.addSuppressed(entry.error);
+				}
+
+				entry.error = null;
+			}
+		}
+
+		if (error instanceof RuntimeException) {
+			throw (RuntimeException)error;
+		}
+		else if (error != null) {
+			throw (Error)error;
+		}
+
+		return cycles;
+	}
+
+	/**
+	 * Shuts down the pool, if it was created by the scheduler.
+	 */
+	public void shutdown() {
+		if (ownsPool) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * An agent and its tick budget.
+	 */
+	private static class ScheduledAgent {
+
+		/** the scheduled agent */
+		private final Agent agent;
+
+		/** maximum number of decision cycles per tick */
+		private int budget;
+
+		/** number of decision cycles performed in the last tick */
+		private int cycles;
+
+		/** error thrown by the agent in the last tick (null if the update completed) */
+		private Throwable error;
+
+		private ScheduledAgent(Agent agent) {
+			this.agent = agent;
+		}
+
+		/**
+		 * Performs decision cycles until the ABT is not expanded or the budget is spent. An error
+		 * thrown by the agent is kept, so that the other agents of the batch are still updated.
+		 */
+		private void update() {
+			cycles = 0;
+
+			try {
+				boolean expanded;
+				do {
+					expanded = agent.scheduledUpdate();
+					cycles++;
+				} while (expanded && cycles < budget);
+			}
+			catch (RuntimeException e) {
+				error = e;
+			}
+			catch (Error e) {
+				error = e;
+			}
+		}
+	}
+
+	/**
+	 * Updates a range of agents, splitting the range into batches.
+	 */
+	private static class UpdateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/** agents in update order */
+		private final ScheduledAgent[] agents;
+
+		/** first agent to update */
+		private final int from;
+
+		/** end of the range (exclusive) */
+		private final int to;
+
+		/** maximum number of agents updated without splitting */
+		private final int batchSize;
+
+		private UpdateTask(ScheduledAgent[] agents, int from, int to, int batchSize) {
+			this.agents = agents;
+			this.from = from;
+			this.to = to;
+			this.batchSize = batchSize;
+		}
+
+		protected void compute() {
+			if (to - from <= batchSize) {
+				for (int index=from; index<to; index++) {
+					agents[index].update();
+				}
+			}
+			else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new UpdateTask(agents, from, middle, batchSize), new UpdateTask(agents, middle, to, batchSize));
+			}
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package microabl;
+
+import java.util.concurrent.CompletionStage;
+
+import microabl.abt.ActionNode;
+/**
+ * Interface for handling actions selected for execution by an ABL agent, where each action
+ * reports completion through a CompletionStage. 
+ * 
+ * The agent applies the completion at the start of the decision cycle after the stage completes. 
+ * An action succeeds if the stage completes normally, and fails if it completes exceptionally. 
+ * The value of the stage is bound to the result variable of the action step, if one is specified. 
+ * Actions awaiting completion are not polled each decision cycle. 
+ */
+public interface AsyncActionListener {
+
+	/**
+	 * Informs the listener that an action has been selected for execution. 
+	 * 
+	 * @return a stage that completes when the action completes 
+	 */
+	public CompletionStage<?> execute(ActionNode action);
+
+	/**
+	 * Informs the listener that an executing action should be aborted. Completions of aborted 
+	 * actions are ignored. 
+	 */
+	public void abort(ActionNode action);
+}
@@ -0,0 +1,106 @@
+package microabl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import microabl.prototype.BehaviorPrototype;
+/**
+ * A compiled behavior library. Behavior prototypes are indexed by goal name and the number
+ * of parameters in the behavior signature, and the candidates for each goal are sorted by
+ * specificity when the library is compiled. The behaviors are compiled as well, which 
+ * resolves behavior variables to slots and compiles the conditions used by the behaviors.
+ *
+ * Retrieving the candidate behaviors for a goal does not scan the library or sort the results,
+ * which keeps goal expansion proportional to the number of behaviors that can accomplish
+ * the goal.
+ *
+ * A compiled library does not reference agent state and can be shared by multiple agents.
+ */
+public class BehaviorLibrary {
+
+	/** comparator for sorting behavior prototypes based on specificity */
+	static Comparator<BehaviorPrototype> specificityComparator = new Comparator<BehaviorPrototype>() {
+		public int compare(BehaviorPrototype b1, BehaviorPrototype b2) {
+			if (b1.getSpecificity() != b2.getSpecificity()) {
+				return b2.getSpecificity() - b1.getSpecificity();
+			}
+			else {
+				return b1.hashCode() - b2.hashCode();
+			}
+		}
+	};
+
+	/** returned for goals that no behavior accomplishes */
+	private static final ArrayList<BehaviorPrototype> NoCandidates = new ArrayList<BehaviorPrototype>();
+
+	/** behavior prototypes in the library */
+	private ArrayList<BehaviorPrototype> behaviors;
+
+	/** candidate behaviors indexed by goal name, then by number of parameters */
+	private HashMap<String, ArrayList<ArrayList<BehaviorPrototype>>> candidates = new HashMap<String, ArrayList<ArrayList<BehaviorPrototype>>>();
+
+	/**
+	 * Compiles the given behavior prototypes into a library.
+	 *
+	 * @param behaviors - behaviors available for expansion
+	 */
+	public BehaviorLibrary(Collection<BehaviorPrototype> behaviors) {
+		this.behaviors = new ArrayList<BehaviorPrototype>(behaviors);
+
+		for (BehaviorPrototype behavior : this.behaviors) {
+			ArrayList<ArrayList<BehaviorPrototype>> byArity = candidates.get(behavior.getGoalName());
+			if (byArity == null) {
+				byArity = new ArrayList<ArrayList<BehaviorPrototype>>();
+				candidates.put(behavior.getGoalName(), byArity);
+			}
+
+			while (byArity.size() <= behavior.getNumParameters()) {
+				byArity.add(NoCandidates);
+			}
+
+			if (byArity.get(behavior.getNumParameters()) == NoCandidates) {
+				byArity.set(behavior.getNumParameters(), new ArrayList<BehaviorPrototype>());
+			}
+
+			byArity.get(behavior.getNumParameters()).add(behavior);
+		}
+
+		// compile behaviors 
+		for (BehaviorPrototype behavior : this.behaviors) {
+			behavior.compile();
+		}
+
+		// sort candidates by specificity
+		for (ArrayList<ArrayList<BehaviorPrototype>> byArity : candidates.values()) {
+			for (ArrayList<BehaviorPrototype> list : byArity) {
+				Collections.sort(list, specificityComparator);
+			}
+		}
+	}
+
+	/**
+	 * Returns the behaviors with the given goal name and number of parameters, sorted by
+	 * specificity. Parameter types are not checked.
+	 *
+	 * The returned list is owned by the library and must not be modified.
+	 */
+	public ArrayList<BehaviorPrototype> getCandidates(String goalName, int numParameters) {
+		ArrayList<ArrayList<BehaviorPrototype>> byArity = candidates.get(goalName);
+
+		if (byArity == null || numParameters >= byArity.size()) {
+			return NoCandidates;
+		}
+
+		return byArity.get(numParameters);
+	}
+
+	/**
+	 * Returns all behavior prototypes in the library.
+	 */
+	public ArrayList<BehaviorPrototype> getBehaviors() {
+		return behaviors;
+	}
+}
@@ -0,0 +1,299 @@
+package microabl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import microabl.prototype.ConditionPrototype;
+import microabl.prototype.VariableFrame;
+import microabl.prototype.VariableLayout;
+import microabl.wm.WorkingMemory;
+/**
+ * Memoizes the results of condition lists.
+ *
+ * A result is keyed by the condition list, the values of the behavior variables the conditions
+ * test, and the working memory version of the WME classes the conditions reference. A result is
+ * reused while none of these change, and the variables bound by a list that holds are restored
+ * from the memoized values. Condition lists are shared by the nodes created from a prototype,
+ * so behaviors pursuing the same goal with the same inputs share results.
+ *
+ * Lists that contain mental conditions are not memoized, since mental conditions can depend on
+ * anything. Lists that reference variables missing from the behavior's layout (e.g. conditions
+ * modified after the library was compiled) are not memoized either, so the memo never adds
+ * variables to a layout. Results are only valid if every modification of a WME is reported to
+ * working memory (see WorkingMemory.updateWME and WME.changed). Variables bound by a partial
+ * match of a list that does not hold are not restored.
+ *
+ * The memo is used by a single agent and is not thread safe.
+ */
+public class ConditionMemo {
+
+	/** maximum number of memoized results per condition list */
+	public static final int MaxEntries = 64;
+
+	/** key value for unbound variables */
+	private static final Object Unbound = new Object();
+
+	/** working memory the conditions are evaluated against */
+	private final WorkingMemory workingMemory;
+
+	/** memoized results by condition list */
+	private IdentityHashMap<ArrayList<ConditionPrototype>, ListMemo> lists = new IdentityHashMap<ArrayList<ConditionPrototype>, ListMemo>();
+
+	/** the list of the last lookup that missed (null if the last lookup hit or was not memoized) */
+	private ListMemo pendingList;
+
+	/** the key of the last lookup that missed */
+	private InputKey pendingKey;
+
+	/** the working memory version of the last lookup that missed */
+	private long pendingVersion;
+
+	/**
+	 * Creates an empty memo for conditions evaluated against the given working memory.
+	 */
+	public ConditionMemo(WorkingMemory workingMemory) {
+		this.workingMemory = workingMemory;
+	}
+
+	/**
+	 * Returns the memoized result of a condition list, restoring the variables bound by the list
+	 * if it holds. If the result is not memoized, then the conditions must be evaluated and the
+	 * result passed to store.
+	 *
+	 * @param conditions - the condition list
+	 * @param variables - the variables the conditions are evaluated with
+	 * @return the memoized result, or null if the conditions must be evaluated
+	 */
+	public Boolean lookup(ArrayList<ConditionPrototype> conditions, VariableFrame variables) {
+		pendingList = null;
+
+		ListMemo list = lists.get(conditions);
+		if (list == null) {
+			list = new ListMemo(conditions, variables.getLayout());
+			lists.put(conditions, list);
+		}
+
+		if (list.classes == null || list.layout != variables.getLayout()) {
+			return null;
+		}
+
+		Object[] values = new Object[list.inputSlots.length];
+		for (int index=0; index<values.length; index++) {
+			int slot = list.inputSlots[index];
+			values[index] = variables.isBound(slot) ? variables.get(slot) : Unbound;
+		}
+
+		InputKey key = new InputKey(values);
+		long version = list.getVersion(workingMemory);
+
+		Entry entry = list.entries.get(key);
+		if (entry != null && entry.version == version) {
+			if (entry.result) {
+				for (int index=0; index<list.outputSlots.length; index++) {
+					variables.set(list.outputSlots[index], entry.outputs[index]);
+				}
+			}
+
+			return entry.result ? Boolean.TRUE : Boolean.FALSE;
+		}
+
+		pendingList = list;
+		pendingKey = key;
+		pendingVersion = version;
+		return null;
+	}
+
+	/**
+	 * Memoizes the result of the condition list of the last lookup, if the lookup missed.
+	 *
+	 * @param result - the result of the conditions
+	 * @param variables - the variables the conditions were evaluated with
+	 * @return true if the result was memoized, false if the list is not memoized
+	 */
+	public boolean store(boolean result, VariableFrame variables) {
+		ListMemo list = pendingList;
+		if (list == null) {
+			return false;
+		}
+
+		pendingList = null;
+
+		Object[] outputs = null;
+		if (result) {
+			outputs = new Object[list.outputSlots.length];
+			for (int index=0; index<outputs.length; index++) {
+				outputs[index] = variables.get(list.outputSlots[index]);
+			}
+		}
+
+		// discard results for inputs that are no longer seen
+		if (list.entries.size() >= MaxEntries && !list.entries.containsKey(pendingKey)) {
+			list.entries.clear();
+		}
+
+		list.entries.put(pendingKey, new Entry(pendingVersion, result, outputs));
+		return true;
+	}
+
+	/**
+	 * Discards all memoized results.
+	 */
+	public void clear() {
+		lists.clear();
+		pendingList = null;
+	}
+
+	/**
+	 * The slots and classes referenced by a condition list, and its memoized results.
+	 */
+	private static class ListMemo {
+
+		/** the layout the slots are resolved against */
+		private final VariableLayout layout;
+
+		/** WME classes referenced by the conditions (null if the list is not memoized) */
+		private final Class[] classes;
+
+		/** slots of the variables tested by the conditions */
+		private final int[] inputSlots;
+
+		/** slots of the variables bound by the conditions */
+		private final int[] outputSlots;
+
+		/** memoized results by input values */
+		private final HashMap<InputKey, Entry> entries = new HashMap<InputKey, Entry>();
+
+		private ListMemo(ArrayList<ConditionPrototype> conditions, VariableLayout layout) {
+			this.layout = layout;
+
+			ArrayList<Class> referenced = new ArrayList<Class>();
+			ArrayList<Integer> inputs = new ArrayList<Integer>();
+			ArrayList<Integer> outputs = new ArrayList<Integer>();
+			boolean memoized = true;
+
+			for (ConditionPrototype condition : conditions) {
+				if (!condition.isWMECheck() && !condition.isNegationCheck()) {
+					memoized = false;
+					break;
+				}
+
+				if (!referenced.contains(condition.getWMEClass())) {
+					referenced.add(condition.getWMEClass());
+				}
+
+				if (!addSlots(condition.getTestVariables(), layout, inputs)) {
+					memoized = false;
+					break;
+				}
+
+				if (condition.isWMECheck()) {
+					if (!addSlots(condition.getBindings().values(), layout, outputs)) {
+						memoized = false;
+						break;
+					}
+
+					if (condition.getWMEVariable() != null && !addSlots(Collections.singleton(condition.getWMEVariable()), layout, outputs)) {
+						memoized = false;
+						break;
+					}
+				}
+			}
+
+			this.classes = memoized ? referenced.toArray(new Class[referenced.size()]) : null;
+			this.inputSlots = toArray(inputs);
+			this.outputSlots = toArray(outputs);
+		}
+
+		/**
+		 * Returns the working memory version of the last change to a WME of a referenced class.
+		 */
+		@SuppressWarnings("unchecked")
+		private long getVersion(WorkingMemory workingMemory) {
+			long version = 0;
+			for (Class wmeClass : classes) {
+				version = Math.max(version, workingMemory.getVersion(wmeClass));
+			}
+
+			return version;
+		}
+
+		/**
+		 * Adds the slots of variables to a list of slots, ignoring slots already in the list.
+		 *
+		 * @return false if a variable is not in the layout
+		 */
+		private static boolean addSlots(Collection<String> names, VariableLayout layout, ArrayList<Integer> slots) {
+			for (String name : names) {
+				int slot = layout.getSlot(name);
+				if (slot < 0) {
+					return false;
+				}
+
+				if (!slots.contains(slot)) {
+					slots.add(slot);
+				}
+			}
+
+			return true;
+		}
+
+		private static int[] toArray(ArrayList<Integer> values) {
+			int[] result = new int[values.size()];
+			for (int index=0; index<result.length; index++) {
+				result[index] = values.get(index);
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * A memoized result.
+	 */
+	private static class Entry {
+
+		/** working memory version of the referenced classes when the result was computed */
+		private final long version;
+
+		/** the result of the conditions */
+		private final boolean result;
+
+		/** values of the bound variables (null if the conditions do not hold) */
+		private final Object[] outputs;
+
+		private Entry(long version, boolean result, Object[] outputs) {
+			this.version = version;
+			this.result = result;
+			this.outputs = outputs;
+		}
+	}
+
+	/**
+	 * The values of the variables tested by a condition list.
+	 */
+	private static class InputKey {
+
+		/** the variable values */
+		private final Object[] values;
+
+		/** hash of the values */
+		private final int hash;
+
+		private InputKey(Object[] values) {
+			this.values = values;
+			this.hash = Arrays.hashCode(values);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		public boolean equals(Object other) {
+			return other instanceof InputKey && Arrays.equals(values, ((InputKey)other).values);
+		}
+	}
+}
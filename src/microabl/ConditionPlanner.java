@@ -0,0 +1,382 @@
+package microabl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+
+import microabl.prototype.ConditionPrototype;
+import microabl.prototype.ConditionPrototype.Comparison;
+import microabl.prototype.ConditionPrototype.Test;
+import microabl.prototype.Variable;
+import microabl.prototype.VariableFrame;
+import microabl.prototype.VariableLayout;
+import microabl.wm.WorkingMemory;
+/**
+ * Chooses the order in which the conditions of a list are evaluated.
+ *
+ * Conditions are evaluated by nested loops over candidate WMEs, so evaluating the most selective
+ * WME conditions first limits the number of partial matches that later conditions are tested
+ * against. The planner orders a list by:
+ *  1. Dependencies: a condition that tests a variable is evaluated after the conditions that
+ *     bind it, and conditions that bind or test the same variables keep their authored order.
+ *     Mental conditions evaluated by a MentalCondition can test any variable, so they keep their
+ *     position relative to the conditions that bind variables.
+ *  2. Filters: negation and mental conditions are evaluated as soon as their dependencies are met.
+ *  3. Cost: of the WME conditions that can be evaluated next, the one with the fewest estimated
+ *     matches is evaluated first. Matches are estimated from working memory (the number of WMEs
+ *     of the class, hash index buckets for equality tests on literals and bound variables, and
+ *     fixed selectivities for other tests), and, once a condition has been evaluated often
+ *     enough, from the average number of matches observed for it. Matches are only observed
+ *     when all candidates of a condition are tested, i.e. not when the search stops at the first
+ *     complete match, so conditions that usually hold are not underestimated.
+ *
+ * Lists are planned when they are first evaluated, and re-planned periodically from the observed
+ * matches. The reordered list holds whenever the authored list holds, but when several WMEs match,
+ * the conditions may bind variables to a different match than the authored order would. Lists
+ * that reference variables missing from the behavior's layout (e.g. conditions modified after the
+ * library was compiled) are evaluated in authored order.
+ *
+ * A planner is used by a single agent and is not thread safe.
+ */
+public class ConditionPlanner {
+
+	/** number of evaluations of a list between plans */
+	public static final int ReplanInterval = 256;
+
+	/** number of evaluations of a condition before its observed matches replace the estimate */
+	private static final int MinVisits = 16;
+
+	/** estimated fraction of WMEs that pass an equality test without an index */
+	private static final double EqualitySelectivity = 0.1;
+
+	/** estimated fraction of WMEs that pass a range test */
+	private static final double RangeSelectivity = 0.33;
+
+	/** working memory the conditions are evaluated against */
+	private final WorkingMemory workingMemory;
+
+	/** plans by condition list */
+	private IdentityHashMap<ArrayList<ConditionPrototype>, Plan> plans = new IdentityHashMap<ArrayList<ConditionPrototype>, Plan>();
+
+	/**
+	 * Creates a planner for conditions evaluated against the given working memory.
+	 */
+	public ConditionPlanner(WorkingMemory workingMemory) {
+		this.workingMemory = workingMemory;
+	}
+
+	/**
+	 * Returns the plan for a condition list, planning or re-planning the list if needed.
+	 *
+	 * @param conditions - the authored condition list
+	 * @param variables - the variables the conditions are evaluated with
+	 * @return the plan, or null if the list has fewer than two conditions or is not planned
+	 */
+	public Plan getPlan(ArrayList<ConditionPrototype> conditions, VariableFrame variables) {
+		if (conditions.size() < 2) {
+			return null;
+		}
+
+		Plan plan = plans.get(conditions);
+		if (plan == null) {
+			plan = new Plan(conditions, variables.getLayout());
+			plans.put(conditions, plan);
+
+			if (plan.resolved) {
+				order(plan, variables);
+			}
+		}
+
+		if (!plan.resolved) {
+			return null;
+		}
+		else if (plan.evaluations >= ReplanInterval) {
+			order(plan, variables);
+			plan.decay();
+		}
+
+		plan.evaluations++;
+		return plan;
+	}
+
+	/**
+	 * Discards all plans and observed matches.
+	 */
+	public void clear() {
+		plans.clear();
+	}
+
+	/**
+	 * Orders the conditions of a plan (see the class header).
+	 */
+	private void order(Plan plan, VariableFrame variables) {
+		int size = plan.authored.size();
+		boolean[] placed = new boolean[size];
+		int[] order = new int[size];
+
+		// variables bound before the conditions are evaluated, or by placed conditions
+		HashSet<String> bound = new HashSet<String>();
+		for (int slot=0; slot<plan.layout.size(); slot++) {
+			if (variables.isBound(slot)) {
+				bound.add(plan.layout.getName(slot));
+			}
+		}
+
+		for (int position=0; position<size; position++) {
+			int next = -1;
+			double nextCost = 0;
+
+			for (int index=0; index<size; index++) {
+				if (placed[index] || !isReady(plan, placed, index)) {
+					continue;
+				}
+
+				ConditionPrototype condition = plan.authored.get(index);
+				if (!condition.isWMECheck()) {
+					next = index;
+					break;
+				}
+
+				double cost = estimateMatches(plan, index, bound);
+				if (next == -1 || cost < nextCost) {
+					next = index;
+					nextCost = cost;
+				}
+			}
+
+			placed[next] = true;
+			order[position] = next;
+			bound.addAll(plan.writes.get(next));
+		}
+
+		plan.setOrder(order);
+	}
+
+	/**
+	 * Returns true if all conditions that must precede a condition are placed.
+	 */
+	private static boolean isReady(Plan plan, boolean[] placed, int index) {
+		for (int other=0; other<index; other++) {
+			if (!placed[other] && plan.before[other][index]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Estimates the number of WMEs that match a WME condition, given the bound variables.
+	 */
+	@SuppressWarnings("unchecked")
+	private double estimateMatches(Plan plan, int index, HashSet<String> bound) {
+		if (plan.visits[index] >= MinVisits) {
+			return (double)plan.matches[index] / plan.visits[index];
+		}
+
+		ConditionPrototype condition = plan.authored.get(index);
+		double matches = workingMemory.getWMEs(condition.getWMEClass()).size();
+		double total = matches;
+
+		for (Test test : condition.getTests()) {
+			Object value = test.getValue();
+			boolean known = !(value instanceof Variable) || bound.contains(((Variable)value).getName());
+			if (!known) {
+				continue;
+			}
+
+			Comparison comparison = test.getComparison();
+			if (comparison == Comparison.Equals || comparison == Comparison.eq) {
+				int numValues = workingMemory.getNumValues(condition.getWMEClass(), test.getAttribute());
+
+				if (numValues >= 0 && !(value instanceof Variable)) {
+					matches = Math.min(matches, workingMemory.getWMEs(condition.getWMEClass(), test.getAttribute(), value).size());
+				}
+				else if (numValues > 0) {
+					matches = Math.min(matches, total / numValues);
+				}
+				else {
+					matches *= EqualitySelectivity;
+				}
+			}
+			else if (comparison != Comparison.NEquals && comparison != Comparison.neq) {
+				matches *= RangeSelectivity;
+			}
+		}
+
+		return matches;
+	}
+
+	/**
+	 * The order of a condition list, and the matches observed for its conditions.
+	 */
+	public static class Plan {
+
+		/** the authored condition list */
+		private final ArrayList<ConditionPrototype> authored;
+
+		/** the layout of the behavior declaring the conditions */
+		private final VariableLayout layout;
+
+		/** true if all variables referenced by the conditions are in the layout */
+		private final boolean resolved;
+
+		/** true if the condition (by authored index) must be evaluated before the other condition */
+		private final boolean[][] before;
+
+		/** variables bound by each condition, by authored index */
+		private final ArrayList<HashSet<String>> writes = new ArrayList<HashSet<String>>();
+
+		/** authored indexes of the conditions, in evaluation order */
+		private int[] order;
+
+		/** the conditions in evaluation order */
+		private ArrayList<ConditionPrototype> ordered;
+
+		/** number of times each condition was evaluated, by authored index */
+		private long[] visits;
+
+		/** number of WMEs that matched each condition, by authored index */
+		private long[] matches;
+
+		/** number of evaluations of the list since it was planned */
+		private int evaluations;
+
+		private Plan(ArrayList<ConditionPrototype> authored, VariableLayout layout) {
+			this.authored = authored;
+			this.layout = layout;
+
+			int size = authored.size();
+			this.before = new boolean[size][size];
+			this.visits = new long[size];
+			this.matches = new long[size];
+
+			ArrayList<HashSet<String>> reads = new ArrayList<HashSet<String>>();
+			boolean[] opaque = new boolean[size];
+
+			for (int index=0; index<size; index++) {
+				ConditionPrototype condition = authored.get(index);
+				HashSet<String> conditionReads = new HashSet<String>();
+				HashSet<String> conditionWrites = new HashSet<String>();
+
+				if (condition.isWMECheck() || condition.isNegationCheck()) {
+					conditionReads.addAll(condition.getTestVariables());
+				}
+				else if (condition.getMethodName() != null) {
+					if (condition.getMethodParameters() != null) {
+						for (Object parameter : condition.getMethodParameters()) {
+							if (parameter instanceof Variable) {
+								conditionReads.add(((Variable)parameter).getName());
+							}
+						}
+					}
+				}
+				else {
+					opaque[index] = true;
+				}
+
+				if (condition.isWMECheck()) {
+					conditionWrites.addAll(condition.getBindings().values());
+
+					if (condition.getWMEVariable() != null) {
+						conditionWrites.add(condition.getWMEVariable());
+					}
+				}
+
+				reads.add(conditionReads);
+				writes.add(conditionWrites);
+			}
+
+			this.resolved = inLayout(reads) && inLayout(writes);
+
+			// conditions keep their authored order if one binds a variable the other tests or binds
+			for (int first=0; first<size; first++) {
+				for (int second=first + 1; second<size; second++) {
+					HashSet<String> firstWrites = writes.get(first);
+					HashSet<String> secondWrites = writes.get(second);
+
+					before[first][second] = intersects(firstWrites, reads.get(second)) ||
+							intersects(reads.get(first), secondWrites) ||
+							intersects(firstWrites, secondWrites) ||
+							(opaque[second] && !firstWrites.isEmpty()) ||
+							(opaque[first] && !secondWrites.isEmpty());
+				}
+			}
+
+			setOrder(null);
+		}
+
+		/**
+		 * Returns the conditions in evaluation order.
+		 */
+		public ArrayList<ConditionPrototype> getConditions() {
+			return ordered;
+		}
+
+		/**
+		 * Records an evaluation of a WME condition that tested all of its candidate WMEs.
+		 *
+		 * @param position - the position of the condition in evaluation order
+		 * @param matched - the number of WMEs that matched the condition
+		 */
+		void visited(int position, int matched) {
+			visits[order[position]]++;
+			matches[order[position]] += matched;
+		}
+
+		/**
+		 * Sets the evaluation order, or the authored order if order is null.
+		 */
+		private void setOrder(int[] order) {
+			if (order == null) {
+				order = new int[authored.size()];
+				for (int index=0; index<order.length; index++) {
+					order[index] = index;
+				}
+			}
+
+			this.order = order;
+			this.ordered = new ArrayList<ConditionPrototype>(order.length);
+			for (int index : order) {
+				ordered.add(authored.get(index));
+			}
+		}
+
+		/**
+		 * Halves the observed matches, so that recent evaluations outweigh older ones.
+		 */
+		private void decay() {
+			for (int index=0; index<visits.length; index++) {
+				visits[index] /= 2;
+				matches[index] /= 2;
+			}
+
+			evaluations = 0;
+		}
+
+		/**
+		 * Returns true if all of the variables are in the layout.
+		 */
+		private boolean inLayout(ArrayList<HashSet<String>> variables) {
+			for (HashSet<String> names : variables) {
+				for (String name : names) {
+					if (layout.getSlot(name) < 0) {
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+
+		private static boolean intersects(HashSet<String> first, HashSet<String> second) {
+			for (String name : first) {
+				if (second.contains(name)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+}
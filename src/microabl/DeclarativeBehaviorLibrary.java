@@ -8,6 +8,8 @@ import java.util.List;
 
 import microabl.prototype.BehaviorPrototype;
 import microabl.prototype.ConditionPrototype;
+import microabl.prototype.MentalAct;
+import microabl.prototype.MentalCondition;
 import microabl.prototype.StepPrototype;
 import microabl.prototype.StepPrototype.StepModifier;
 import microabl.prototype.Variable;
@@ -150,6 +152,20 @@ abstract public class DeclarativeBehaviorLibrary {
 		return ConditionPrototype.createMental(clazz).setMethodName(name).setMethodParameters(parameters);
 	}
 	
+	protected ConditionPrototype mental(MentalCondition condition) {
+		return ConditionPrototype.createMental(condition);
+	}
+	
+	protected StepApplicable mental_act(MentalAct act) {
+		StepPrototype step = StepPrototype.createMentalAct(act);
+		return new StepApplicable(step);
+	}
+	
+	protected <T> StepApplicable mental_act(Var<T> result, MentalAct act) {
+		StepPrototype step = StepPrototype.createMentalAct(act).setResultBinding(result.name);
+		return new StepApplicable(step);
+	}
+	
 	protected StepApplicable action(Action action, Object... parameters) {
 		StepPrototype step = StepPrototype.createAction(action.name).setParameters(parameters);
 		return new StepApplicable(step);
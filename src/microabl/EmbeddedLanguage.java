@@ -4,6 +4,8 @@ import java.util.ArrayList;
 
 import microabl.prototype.BehaviorPrototype;
 import microabl.prototype.ConditionPrototype;
+import microabl.prototype.MentalAct;
+import microabl.prototype.MentalCondition;
 import microabl.prototype.StepPrototype;
 import microabl.prototype.StepPrototype.StepModifier;
 import microabl.prototype.Variable;
@@ -72,6 +74,22 @@ public class EmbeddedLanguage {
 		};
 	}
 	
+	public static ItemTweak<BehaviorPrototype,StepPrototype> mental_act(MentalAct act) {
+		final StepPrototype step = StepPrototype.createMentalAct(act);
+		return new ItemTweak<BehaviorPrototype,StepPrototype>() {
+			void apply(BehaviorPrototype proto) { addStep(proto, step); }
+			StepPrototype get() { return step; }
+		};
+	}
+	
+	public static ItemTweak<BehaviorPrototype,StepPrototype> mental_act(String resultBinding, MentalAct act) {
+		final StepPrototype step = StepPrototype.createMentalAct(act).setResultBinding(resultBinding);
+		return new ItemTweak<BehaviorPrototype,StepPrototype>() {
+			void apply(BehaviorPrototype proto) { addStep(proto, step); }
+			StepPrototype get() { return step; }
+		};
+	}
+	
 	public static ItemTweak<BehaviorPrototype,StepPrototype> subgoal(String goalName) {
 		final StepPrototype step = StepPrototype.createSubgoal(goalName);
 		return new ItemTweak<BehaviorPrototype,StepPrototype>() {
@@ -129,6 +147,10 @@ public class EmbeddedLanguage {
 		return ConditionPrototype.createMental(clazz).setMethodName(methodName).setMethodParameters(methodParameters);
 	}
 	
+	public static ConditionPrototype mental(MentalCondition condition) {
+		return ConditionPrototype.createMental(condition);
+	}
+	
 	public static Binding bind(final String attribute, final String variable) {
 		Binding b = new Binding();
 		b.attribute = attribute;
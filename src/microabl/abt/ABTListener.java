@@ -0,0 +1,36 @@
+package microabl.abt;
+/**
+ * Interface for monitoring modifications to an ABT. 
+ * 
+ * Nodes notify the listener of the ABT they belong to when they are added to or removed 
+ * from the tree and when their status or priority changes. The agent uses these notifications
+ * to maintain its view of the ABT incrementally, rather than traversing the tree each decision
+ * cycle. 
+ */
+public interface ABTListener {
+
+	/**
+	 * Informs the listener that a node has been added to the ABT. 
+	 */
+	public void nodeAdded(ABTNode node);
+
+	/**
+	 * Informs the listener that a node has been removed from the ABT. 
+	 */
+	public void nodeRemoved(ABTNode node);
+
+	/**
+	 * Informs the listener that the status of a node has changed. 
+	 */
+	public void statusChanged(ABTNode node, ABTNode.NodeStatus previousStatus);
+
+	/**
+	 * Informs the listener that the priority of a node is about to change. 
+	 */
+	public void priorityChanging(ABTNode node);
+
+	/**
+	 * Informs the listener that the priority of a node has changed. 
+	 */
+	public void priorityChanged(ABTNode node);
+}
@@ -1,6 +1,9 @@
 package microabl.abt;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import microabl.timer.Timer;
 /**
  * Base class for nodes in the ABT. 
  * 
@@ -9,11 +12,17 @@ import java.util.ArrayList;
  *  Executing: node is currently executing 
  *  Success: node completed and succeeded 
  *  Failure: node completed and failed 
+ *  
+ * Nodes that are part of an agent's ABT notify the agent's ABT listener of modifications. 
+ * Nodes that have not been added to an ABT, or have been removed, have no listener. 
  */
 public abstract class ABTNode {
 
 	/** possible status for a node */ 
 	public enum NodeStatus { Open, Executing, Success, Failure }
+
+	/** source of node sequence numbers */ 
+	private static final AtomicLong nextSequence = new AtomicLong();
  
 	/** status of the node */
 	protected NodeStatus nodeStatus = NodeStatus.Open;
@@ -29,6 +38,18 @@ public abstract class ABTNode {
 	
 	/** child nodes (for goals this is a single behavior, for behaviors it is set of steps) */ 
 	private ArrayList<ABTNode> children = new ArrayList<ABTNode>(); 
+
+	/** listener for the ABT containing this node (null if not part of an ABT) */ 
+	private ABTListener listener; 
+
+	/** creation order of the node, used to order nodes with equal priority */ 
+	private final long sequence = nextSequence.getAndIncrement();
+
+	/** time the node has to complete after it is added to the ABT, in milliseconds (0 if unlimited) */ 
+	private long timeout = 0; 
+
+	/** timer that fails the node when the timeout elapses (null if not scheduled) */ 
+	private Timer timeoutTimer; 
 	
 	/** Informs the node that a child has completed. Base implementation does nothing. */
 	public void childCompleted(ABTNode node) {		
@@ -43,10 +64,16 @@ public abstract class ABTNode {
 	}
 	 
 	public void removeChild(ABTNode child) {
-		children.remove(child);
+		if (children.remove(child)) {
+			child.detach();
+		}
 	}
 
 	public void clearChildren() {
+		for (ABTNode child : children) {
+			child.detach();
+		}
+		
 		children.clear();
 	}
  
@@ -55,8 +82,16 @@ public abstract class ABTNode {
 	} 
 	
 	public void setPriority(int priority) {
+		if (listener != null) {
+			listener.priorityChanging(this);
+		}
+		
 		this.priority = priority;
 		prioritySpecified = true;
+
+		if (listener != null) {
+			listener.priorityChanged(this);
+		}
 	}
 	 
 	public boolean getPrioritySpecified() {
@@ -84,15 +119,79 @@ public abstract class ABTNode {
 	}
 
 	public void setStatus(NodeStatus status) {
+		NodeStatus previousStatus = nodeStatus;
 		this.nodeStatus = status;
+		
+		if (listener != null && previousStatus != status) {
+			listener.statusChanged(this, previousStatus);
+		}
 	}
 	
 	public void setParent(ABTNode parent) {
 		this.parent = parent; 
 	}
 
+	/**
+	 * Adds a child node and sets this node as the child's parent. If this node is part of
+	 * an ABT, then the child and its subtree are added to the ABT. 
+	 */
 	public void addChild(ABTNode child) {
 		children.add(child);
+		child.setParent(this);
+		
+		if (listener != null) {
+			child.attach(listener);
+		}
+	}
+
+	/**
+	 * Adds the node and its subtree to the ABT monitored by the listener. 
+	 */
+	public void attach(ABTListener listener) {
+		this.listener = listener;
+		listener.nodeAdded(this);
+
+		for (ABTNode child : children) {
+			child.attach(listener);
+		}
+	}
+
+	/**
+	 * Removes the node and its subtree from the ABT it belongs to. 
+	 */
+	public void detach() {
+		for (ABTNode child : children) {
+			child.detach();
+		}
+		
+		if (listener != null) {
+			listener.nodeRemoved(this);
+			listener = null;
+		}
+	}
+
+	public boolean isAttached() {
+		return listener != null;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	public Timer getTimeoutTimer() {
+		return timeoutTimer;
+	}
+
+	public void setTimeoutTimer(Timer timeoutTimer) {
+		this.timeoutTimer = timeoutTimer;
 	}
 	
 	public ABTNode getParent() {
@@ -10,5 +10,12 @@ public class ABTRuntimeError extends Error {
 	public ABTRuntimeError(String message) {
 		super(message);
 	}
+
+	/**
+	 * Creates an ABT error with the given message, caused by another error or exception. 
+	 */
+	public ABTRuntimeError(String message, Throwable cause) {
+		super(message, cause);
+	}
 }
  
\ No newline at end of file
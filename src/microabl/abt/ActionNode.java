@@ -1,4 +1,8 @@
 package microabl.abt;
+
+import java.util.Queue;
+
+import microabl.prototype.ActionRegistry;
 /**
  * Represents the execution of a physical action. 
  *
@@ -6,29 +10,76 @@ package microabl.abt;
  * include literals and variables. Before this node is selected for expansion, the
  * ABT binds the prototype parameters to execution parameters by looking up 
  * behavior-scoped variables. 
+ * 
+ * Action listeners can report completion from any thread by invoking complete. Completions are
+ * posted to a queue of the agent executing the action and applied at the start of the agent's 
+ * next decision cycle, so listeners do not modify the ABT while the agent is updating it. 
  */
 public class ActionNode extends ABTNode {
 
 	/** the name of the physical action this action performs */ 
 	private String actionName;
 
+	/** the ID of the action name (-1 if not yet looked up) */ 
+	private int actionId; 
+
 	/** prototype parameters, specified as literals and variables */ 
 	private Object[] prototypeParameters;
  
 	/** parameters specified for action execution. */ 
 	private Object[] executionParameters;
 
+	/** an optional variable name for binding the action result to a behavior variable */ 
+	private String resultBinding;
+
+	/** result reported when the action completed */ 
+	private volatile Object result; 
+
+	/** completion status reported by complete, until it is applied by the agent (null if none) */ 
+	private volatile NodeStatus completionStatus; 
+
+	/** queue of the agent executing the action, that completions are posted to */ 
+	private volatile Queue<ActionNode> completionQueue; 
+
 	/**
 	 * Instantiates an action node that performs the given action name and parameters. 
 	 */
 	public ActionNode(String actionName, Object[] prototypeParameters) {
+		this(actionName, prototypeParameters, null);
+	}
+
+	/**
+	 * Instantiates an action node that performs the given action name and parameters, and binds 
+	 * the action result to a behavior variable. 
+	 */
+	public ActionNode(String actionName, Object[] prototypeParameters, String resultBinding) {
+		this(actionName, prototypeParameters, resultBinding, -1);
+	}
+
+	/**
+	 * Instantiates an action node with an action ID assigned when the behavior library was compiled. 
+	 */
+	public ActionNode(String actionName, Object[] prototypeParameters, String resultBinding, int actionId) {
 		this.actionName = actionName;
 		this.prototypeParameters = prototypeParameters;
+		this.resultBinding = resultBinding;
+		this.actionId = actionId;
 	}
  
 	public String getActionName() {
 		return actionName;
 	}
+
+	/**
+	 * Returns the ID of the action name (see ActionRegistry). 
+	 */
+	public int getActionId() {
+		if (actionId < 0) {
+			actionId = ActionRegistry.getId(actionName);
+		}
+		
+		return actionId;
+	}
 	    
 	public void bindParameters(Object[] executionParameters) {
 		this.executionParameters = executionParameters;
@@ -41,6 +92,64 @@ public class ActionNode extends ABTNode {
 	public Object[] getExecutionParameters() {
 		return executionParameters; 
 	}
+
+	public String getResultBinding() {
+		return resultBinding;
+	}
+
+	public Object getResult() {
+		return result;
+	}
+
+	/**
+	 * Reports that the action has completed. Can be invoked from any thread. 
+	 * 
+	 * @param success - true if the action succeeded, false if it failed 
+	 */
+	public void complete(boolean success) {
+		complete(success, null);
+	}
+
+	/**
+	 * Reports that the action has completed with a result. Can be invoked from any thread. 
+	 * 
+	 * The completion is applied at the start of the next decision cycle of the agent executing 
+	 * the action, and the result is bound to the result variable if one is specified. If the 
+	 * action is not executed by an agent, then the status is set immediately. 
+	 * 
+	 * @param success - true if the action succeeded, false if it failed 
+	 * @param result - the action result 
+	 */
+	public void complete(boolean success, Object result) {
+		NodeStatus status = success ? NodeStatus.Success : NodeStatus.Failure; 
+		this.result = result;
+		
+		Queue<ActionNode> queue = completionQueue;
+		if (queue == null) {
+			setStatus(status);
+		}
+		else {
+			completionStatus = status;
+			queue.add(this);
+		}
+	}
+
+	/**
+	 * Sets the queue that completions are posted to. Set by the agent executing the action. 
+	 */
+	public void setCompletionQueue(Queue<ActionNode> completionQueue) {
+		this.completionQueue = completionQueue;
+	}
+
+	/**
+	 * Returns the reported completion status and clears it, or returns null if no completion 
+	 * is pending. 
+	 */
+	public NodeStatus takeCompletionStatus() {
+		NodeStatus status = completionStatus; 
+		completionStatus = null;
+		return status;
+	}
 	
 	public String toString() {  
 		return "ActionNode: " + actionName + " (" + nodeStatus + ") " + getPriority(); 
@@ -1,12 +1,12 @@
 package microabl.abt;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 
 import microabl.prototype.BehaviorPrototype;
 import microabl.prototype.ConditionPrototype;
 import microabl.prototype.StepPrototype;
+import microabl.prototype.Variable;
+import microabl.prototype.VariableFrame;
 /**
  * Represents a behavior selected for expansion. 
  * 
@@ -16,14 +16,17 @@ import microabl.prototype.StepPrototype;
  */
 public class BehaviorNode extends ABTNode {
 
+	/** prototype the behavior was instantiated from */ 
+	private BehaviorPrototype prototype; 
+
 	/** goal name the behavior accomplishes */ 
 	private String goalName; 
  
 	/** steps in the behavior */ 
 	protected ArrayList<ABTNode> steps = new ArrayList<ABTNode>();
   	 
-	/** behavior scoped variables */ 
-	private HashMap<String, Object> variables = new HashMap<String, Object>(); 
+	/** behavior scoped variables, in the slots of the prototype's variable layout */ 
+	private VariableFrame variables; 
 
 	/** conditions that must remain true during execution */
 	private ArrayList<ConditionPrototype> contextConditions = new ArrayList<ConditionPrototype>();
@@ -39,12 +42,14 @@ public class BehaviorNode extends ABTNode {
 	 * @param prototype - behavior prototype that specifies steps and conditions 
 	 * @param variables - parameters for the goal the behavior accomplishes. 
 	 */
-	public BehaviorNode(BehaviorPrototype prototype, HashMap<String, Object> variables) {
+	public BehaviorNode(BehaviorPrototype prototype, VariableFrame variables) {
+		this.prototype = prototype;
 		this.goalName = prototype.getGoalName();
 		this.variables = variables;
  		
 		this.contextConditions = prototype.getContextConditions();
 		this.successConditions = prototype.getsuccessConditions(); 
+		setTimeout(prototype.getDeadline());
    
 		// create ABT nodes for each step in the behavior 
 		for (StepPrototype stepPrototype : prototype.getSteps()) {
@@ -59,22 +64,32 @@ public class BehaviorNode extends ABTNode {
 	 */
 	public Object getVariable(String name) {
 		
-		if (!variables.containsKey(name)) { 
+		if (!variables.isBound(name)) { 
 			throw new ABTRuntimeError("Unbound variable: " + name + " in behavior: " + goalName);  
 		}
 		
 		return variables.get(name);
 	}
 
+	/**
+	 * Returns the value of a behavior-scoped variable, using the variable's resolved slot. 
+	 * 
+	 * Throws an error if the variable is not boundd. 
+	 */
+	public Object getVariable(Variable variable) {
+		
+		if (!variables.isBound(variable)) { 
+			throw new ABTRuntimeError("Unbound variable: " + variable.getName() + " in behavior: " + goalName);  
+		}
+		
+		return variables.get(variable);
+	}
+
 	public void setVariable(String name, Object value) {
-		variables.put(name, value); 
+		variables.set(name, value); 
 	}
-  	    
-	public void setVariables(Map<String, Object> variables) {
-		this.variables.putAll(variables);
-	} 
 	 
-	public HashMap<String, Object> getVariables() {
+	public VariableFrame getVariables() {
 		return variables;
 	}
 
@@ -90,6 +105,10 @@ public class BehaviorNode extends ABTNode {
 		return goalName;
 	}
 
+	public BehaviorPrototype getPrototype() {
+		return prototype;
+	}
+
 	public int getNumSteps() {
 		return steps.size();
 	}
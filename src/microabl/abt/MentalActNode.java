@@ -1,4 +1,8 @@
 package microabl.abt;
+
+import microabl.prototype.MentalAct;
+import microabl.prototype.MethodInvoker;
+import microabl.prototype.VariableFrame;
 /**
  * A node that invokes a Java method. 
  *
@@ -6,6 +10,10 @@ package microabl.abt;
  * include literals and variables. Before this node is selected for expansion, the
  * ABT binds the prototype parameters to execution parameters by looking up 
  * behavior-scoped variables. 
+ * 
+ * The method is invoked through a MethodInvoker, which is shared by the mental acts created 
+ * from the same step prototype and caches the resolved method. Alternatively, a mental act can 
+ * perform a MentalAct function, which is passed the variables of the enclosing behavior. 
  */
 public class MentalActNode extends ABTNode {
 	
@@ -14,6 +22,12 @@ public class MentalActNode extends ABTNode {
 
 	/** the name of the static method */
 	private String methodName;
+
+	/** invokes the method (null if the node performs a MentalAct) */ 
+	private MethodInvoker invoker; 
+
+	/** the function to perform (null if the node invokes a method) */ 
+	private MentalAct mentalAct; 
  
 	/** parameters for invoking the method */ 
 	private Object[] prototypeParameters; 
@@ -33,12 +47,48 @@ public class MentalActNode extends ABTNode {
 	 * @param resultBinding - optional parameter for binding invocation result to a behavior variable 
 	 */
 	public MentalActNode(Class actionClass, String methodName, Object[] prototypeParameters, String resultBinding) {
+		this(new MethodInvoker(actionClass, methodName), actionClass, methodName, prototypeParameters, resultBinding);
+	}  
+
+	/** 
+	 * Instantiates a mental act that invokes the method with a shared invoker. 
+	 *  
+	 * @param invoker - invoker for the method 
+	 * @param actionClass - class containing the method 
+	 * @param methodName - name of the static method to invoke
+	 * @param prototypeParameters - parameters passed to the Java method 
+	 * @param resultBinding - optional parameter for binding invocation result to a behavior variable 
+	 */
+	public MentalActNode(MethodInvoker invoker, Class actionClass, String methodName, Object[] prototypeParameters, String resultBinding) {
+		this.invoker = invoker;
 		this.actionClass = actionClass;
 		this.methodName = methodName;
 		this.prototypeParameters = prototypeParameters;
 		this.resultBinding = resultBinding;
 	}  
 	
+	/** 
+	 * Instantiates a mental act that performs a function. 
+	 *  
+	 * @param mentalAct - the function to perform 
+	 * @param resultBinding - optional parameter for binding the function result to a behavior variable 
+	 */
+	public MentalActNode(MentalAct mentalAct, String resultBinding) {
+		this.mentalAct = mentalAct;
+		this.prototypeParameters = new Object[0];
+		this.resultBinding = resultBinding;
+	}  
+
+	/**
+	 * Performs the mental act function with the variables of the enclosing behavior. 
+	 * 
+	 * The node immediately succeeds upon completion of the function. 
+	 */
+	public void execute(VariableFrame variables) {
+		result = mentalAct.execute(variables);
+		setStatus(NodeStatus.Success);
+	}
+
 	/**
 	 * Invokes the mental act. 
 	 * 
@@ -46,19 +96,12 @@ public class MentalActNode extends ABTNode {
 	 */
 	public void execute(Object[] parameters) {
 
-		// look up parameter classes 
-		Class[] classes = new Class[parameters .length];			
-		for (int i=0; i<parameters .length; i++) {
-			classes[i] = parameters [i].getClass();
-		}
-  
 		// invoke the method 
 		try {
-			result = actionClass.getMethod(methodName, classes).invoke(null, parameters);
+			result = invoker.invoke(parameters);
 		}
-		catch (Exception e) {
-			e.printStackTrace(); 
-			throw new ABTRuntimeError("Mental act failed: " + e.getMessage());
+		catch (Throwable e) {
+			throw new ABTRuntimeError("Mental act failed: " + e.getMessage(), e);
 		}
 		
 		setStatus(NodeStatus.Success);
@@ -69,8 +112,16 @@ public class MentalActNode extends ABTNode {
 	}
 
 	public String toString() { 
+		if (mentalAct != null) {
+			return "MentalActNode: " + mentalAct + " (" + nodeStatus + ") " + getPriority(); 
+		}
+		
 		return "MentalActNode: " + actionClass + "." + methodName + " [" + prototypeParameters.length + "] (" + nodeStatus + ") " + getPriority(); 
 	}
+
+	public MentalAct getMentalAct() {
+		return mentalAct;
+	}
  
 	public Object[] getPrototypeParameters() {
 		return prototypeParameters;
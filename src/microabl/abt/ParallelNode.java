@@ -1,8 +1,7 @@
 package microabl.abt;
 
-import java.util.HashMap;
-
 import microabl.prototype.BehaviorPrototype;
+import microabl.prototype.VariableFrame;
 /**
  * Represents a parallel behavior. 
  */
@@ -19,7 +18,7 @@ public class ParallelNode extends BehaviorNode {
 	 * 
 	 * @param variables - parameters for the goal the behavior accomplishes. 
 	 */
-	public ParallelNode(BehaviorPrototype prototype, HashMap<String, Object> variables) {
+	public ParallelNode(BehaviorPrototype prototype, VariableFrame variables) {
 		super(prototype, variables);				
 		numberNeededForSuccess = prototype.getNumberNeededForSuccess() > 0 ? prototype.getNumberNeededForSuccess() : steps.size();
 	} 
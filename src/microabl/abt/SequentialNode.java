@@ -1,8 +1,7 @@
 package microabl.abt;
 
-import java.util.HashMap;
-
 import microabl.prototype.BehaviorPrototype;
+import microabl.prototype.VariableFrame;
 /**
  * Represents a sequential behavior. 
  */
@@ -13,7 +12,7 @@ public class SequentialNode extends BehaviorNode {
 	 * 
 	 * @param variables - parameters for the goal the behavior accomplishes. 
 	 */
-	public SequentialNode(BehaviorPrototype prototype, HashMap<String, Object> variables) {
+	public SequentialNode(BehaviorPrototype prototype, VariableFrame variables) {
 		super(prototype, variables);
 	}
 
@@ -4,23 +4,46 @@ import java.util.ArrayList;
 
 import microabl.prototype.ConditionPrototype;
 /**
- * A node that suspends execution until a set of conditions becomes true. 
+ * A node that suspends execution until a set of conditions becomes true. If a timeout is 
+ * specified, the node fails if the conditions do not become true before the timeout elapses. 
  */
 public class WaitStepNode extends ABTNode {
 
 	/** conditions to wait on */ 
 	private ArrayList<ConditionPrototype> waitConditions;
 
+	/** true if the node is not re-evaluated until working memory changes */ 
+	private boolean parked = false; 
+
 	/**
 	 * Instantiates a wait node with the specified wait conditions. 
 	 */
 	public WaitStepNode(ArrayList<ConditionPrototype> waitConditions) {
 		this.waitConditions = waitConditions;
 	}
+
+	/**
+	 * Instantiates a wait node with the specified wait conditions and timeout. 
+	 * 
+	 * @param waitConditions - conditions to wait on 
+	 * @param timeout - milliseconds to wait before failing (0 to wait indefinitely) 
+	 */
+	public WaitStepNode(ArrayList<ConditionPrototype> waitConditions, long timeout) {
+		this.waitConditions = waitConditions;
+		setTimeout(timeout);
+	}
   	 
 	public ArrayList<ConditionPrototype> getWaitConditions() {
 		return waitConditions;
 	}
+
+	public boolean isParked() {
+		return parked;
+	}
+
+	public void setParked(boolean parked) {
+		this.parked = parked;
+	}
 	
 	public String toString() {
 		return "WaitStepNode (" + nodeStatus + ") " + getPriority();  
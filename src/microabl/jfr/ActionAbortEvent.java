@@ -0,0 +1,22 @@
+package microabl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+/**
+ * Flight recorder event spanning the abort of an action by the action listener. 
+ */
+@Name("microabl.ActionAbort")
+@Label("Action Abort")
+@Category("MicroABL")
+@Description("An executing action was aborted")
+@StackTrace(false)
+public class ActionAbortEvent extends Event {
+
+	/** name of the action */ 
+	@Label("Action")
+	public String actionName;
+}
@@ -0,0 +1,26 @@
+package microabl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+/**
+ * Flight recorder event spanning the dispatch of an action to the action listener. 
+ */
+@Name("microabl.ActionExecute")
+@Label("Action Execute")
+@Category("MicroABL")
+@Description("An action was sent to the action listener")
+@StackTrace(false)
+public class ActionExecuteEvent extends Event {
+
+	/** name of the action */ 
+	@Label("Action")
+	public String actionName;
+
+	/** number of action parameters */ 
+	@Label("Parameters")
+	public int numParameters;
+}
@@ -0,0 +1,30 @@
+package microabl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+/**
+ * Flight recorder event emitted when a failed behavior is removed from the ABT. 
+ */
+@Name("microabl.BehaviorFailed")
+@Label("Behavior Failed")
+@Category("MicroABL")
+@Description("A behavior failed")
+@StackTrace(false)
+public class BehaviorFailedEvent extends Event {
+
+	/** goal name of the behavior prototype */ 
+	@Label("Goal")
+	public String goalName;
+
+	/** specificity of the behavior prototype */ 
+	@Label("Specificity")
+	public int specificity;
+
+	/** true for sequential behaviors, false for parallel behaviors */ 
+	@Label("Sequential")
+	public boolean sequential;
+}
@@ -0,0 +1,30 @@
+package microabl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+/**
+ * Flight recorder event emitted when a behavior is selected to pursue a goal. 
+ */
+@Name("microabl.BehaviorSelected")
+@Label("Behavior Selected")
+@Category("MicroABL")
+@Description("A behavior was added to the ABT to pursue a goal")
+@StackTrace(false)
+public class BehaviorSelectedEvent extends Event {
+
+	/** goal name of the behavior prototype */ 
+	@Label("Goal")
+	public String goalName;
+
+	/** specificity of the behavior prototype */ 
+	@Label("Specificity")
+	public int specificity;
+
+	/** true for sequential behaviors, false for parallel behaviors */ 
+	@Label("Sequential")
+	public boolean sequential;
+}
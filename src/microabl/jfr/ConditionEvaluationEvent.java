@@ -0,0 +1,42 @@
+package microabl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+/**
+ * Flight recorder event spanning the evaluation of a list of conditions. 
+ */
+@Name("microabl.ConditionEvaluation")
+@Label("Condition Evaluation")
+@Category("MicroABL")
+@Description("Evaluation of the preconditions, success conditions, context conditions or wait conditions of a behavior")
+@StackTrace(false)
+public class ConditionEvaluationEvent extends Event {
+
+	/** goal name of the behavior prototype declaring the conditions */ 
+	@Label("Goal")
+	public String goalName;
+
+	/** Precondition, Success, Context or Wait */ 
+	@Label("Condition List")
+	public String conditionList;
+
+	/** types of the conditions, in evaluation order (e.g. "WME WME Mental") */ 
+	@Label("Condition Types")
+	public String conditionTypes;
+
+	/** true if the conditions were matched by an incremental match network */ 
+	@Label("Incremental")
+	public boolean incremental;
+
+	/** true if the result was memoized (see ConditionMemo) */ 
+	@Label("Memoized")
+	public boolean memoized;
+
+	/** true if the conditions hold */ 
+	@Label("Result")
+	public boolean result;
+}
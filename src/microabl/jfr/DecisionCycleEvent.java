@@ -0,0 +1,35 @@
+package microabl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+/**
+ * Flight recorder event spanning an agent decision cycle (Agent.update), or the part of a 
+ * time-budgeted decision cycle performed by an update. 
+ */
+@Name("microabl.DecisionCycle")
+@Label("Decision Cycle")
+@Category("MicroABL")
+@Description("An agent decision cycle")
+@StackTrace(false)
+public class DecisionCycleEvent extends Event {
+
+	/** true if the ABT was expanded */ 
+	@Label("Expanded")
+	public boolean expanded;
+
+	/** true if the cycle was suspended by a time budget (see Agent.update(long)) */ 
+	@Label("Suspended")
+	public boolean suspended;
+
+	/** number of open nodes at the end of the cycle */ 
+	@Label("Open Nodes")
+	public int openNodes;
+
+	/** number of root nodes at the end of the cycle */ 
+	@Label("Root Nodes")
+	public int rootNodes;
+}
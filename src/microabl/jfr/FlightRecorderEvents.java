@@ -0,0 +1,139 @@
+package microabl.jfr;
+
+import java.util.List;
+
+import microabl.AgentRecorder;
+import microabl.prototype.ConditionPrototype;
+/**
+ * Recorder that emits the flight recorder events of this package. Loaded by AgentRecorder when
+ * the runtime provides jdk.jfr. Event fields are only filled in when the event is being recorded.
+ */
+public class FlightRecorderEvents extends AgentRecorder {
+
+	public Object beginCycle() {
+		DecisionCycleEvent event = new DecisionCycleEvent();
+		event.begin();
+		return event;
+	}
+
+	public void endCycle(Object handle, boolean expanded, boolean suspended, int openNodes, int rootNodes) {
+		DecisionCycleEvent event = (DecisionCycleEvent)handle;
+
+		if (event.shouldCommit()) {
+			event.expanded = expanded;
+			event.suspended = suspended;
+			event.openNodes = openNodes;
+			event.rootNodes = rootNodes;
+			event.commit();
+		}
+	}
+
+	public Object beginGoalExpansion() {
+		GoalExpansionEvent event = new GoalExpansionEvent();
+		event.begin();
+		return event;
+	}
+
+	public void endGoalExpansion(Object handle, String goalName, int arity, int candidates, int tested, boolean expanded) {
+		GoalExpansionEvent event = (GoalExpansionEvent)handle;
+
+		if (event.shouldCommit()) {
+			event.goalName = goalName;
+			event.arity = arity;
+			event.candidates = candidates;
+			event.behaviorsTested = tested;
+			event.expanded = expanded;
+			event.commit();
+		}
+	}
+
+	public void behaviorSelected(String goalName, int specificity, boolean sequential) {
+		BehaviorSelectedEvent event = new BehaviorSelectedEvent();
+
+		if (event.shouldCommit()) {
+			event.goalName = goalName;
+			event.specificity = specificity;
+			event.sequential = sequential;
+			event.commit();
+		}
+	}
+
+	public void behaviorFailed(String goalName, int specificity, boolean sequential) {
+		BehaviorFailedEvent event = new BehaviorFailedEvent();
+
+		if (event.shouldCommit()) {
+			event.goalName = goalName;
+			event.specificity = specificity;
+			event.sequential = sequential;
+			event.commit();
+		}
+	}
+
+	public Object beginConditions() {
+		ConditionEvaluationEvent event = new ConditionEvaluationEvent();
+		event.begin();
+		return event;
+	}
+
+	public void endConditions(Object handle, String conditionList, String goalName, List<ConditionPrototype> conditions,
+			boolean incremental, boolean memoized, boolean result) {
+		ConditionEvaluationEvent event = (ConditionEvaluationEvent)handle;
+
+		if (event.shouldCommit()) {
+			event.goalName = goalName;
+			event.conditionList = conditionList;
+			event.conditionTypes = describe(conditions);
+			event.incremental = incremental;
+			event.memoized = memoized;
+			event.result = result;
+			event.commit();
+		}
+	}
+
+	public Object beginActionExecute() {
+		ActionExecuteEvent event = new ActionExecuteEvent();
+		event.begin();
+		return event;
+	}
+
+	public void endActionExecute(Object handle, String actionName, int numParameters) {
+		ActionExecuteEvent event = (ActionExecuteEvent)handle;
+
+		if (event.shouldCommit()) {
+			event.actionName = actionName;
+			event.numParameters = numParameters;
+			event.commit();
+		}
+	}
+
+	public Object beginActionAbort() {
+		ActionAbortEvent event = new ActionAbortEvent();
+		event.begin();
+		return event;
+	}
+
+	public void endActionAbort(Object handle, String actionName) {
+		ActionAbortEvent event = (ActionAbortEvent)handle;
+
+		if (event.shouldCommit()) {
+			event.actionName = actionName;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Returns the types of a list of conditions, separated by spaces.
+	 */
+	private static String describe(List<ConditionPrototype> conditions) {
+		StringBuilder types = new StringBuilder();
+		for (ConditionPrototype condition : conditions) {
+			if (types.length() > 0) {
+				types.append(' ');
+			}
+
+			types.append(condition.getConditionType());
+		}
+
+		return types.toString();
+	}
+}
@@ -0,0 +1,39 @@
+package microabl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+/**
+ * Flight recorder event spanning the expansion of a goal, including the precondition checks
+ * of the candidate behaviors. 
+ */
+@Name("microabl.GoalExpansion")
+@Label("Goal Expansion")
+@Category("MicroABL")
+@Description("Selection of a behavior for a goal")
+@StackTrace(false)
+public class GoalExpansionEvent extends Event {
+
+	/** name of the goal */ 
+	@Label("Goal")
+	public String goalName;
+
+	/** number of goal parameters */ 
+	@Label("Arity")
+	public int arity;
+
+	/** number of behaviors in the library for the goal name and arity */ 
+	@Label("Candidates")
+	public int candidates;
+
+	/** number of behaviors with a matching signature whose preconditions were tested */ 
+	@Label("Behaviors Tested")
+	public int behaviorsTested;
+
+	/** true if a behavior was selected, false if the goal failed */ 
+	@Label("Expanded")
+	public boolean expanded;
+}
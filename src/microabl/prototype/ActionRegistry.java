@@ -0,0 +1,48 @@
+package microabl.prototype;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+/**
+ * Interns action names into dense integer IDs. IDs are assigned in the order names are first
+ * registered, starting at 0, and are shared by all behavior libraries. 
+ * 
+ * Action steps are assigned IDs when a behavior library is compiled, and action listeners can
+ * use the IDs of action nodes to look up handlers in an array (see ActionDispatcher). 
+ */
+public class ActionRegistry {
+
+	/** action IDs by name */ 
+	private static final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+
+	/** action names by ID */ 
+	private static final ArrayList<String> names = new ArrayList<String>();
+
+	/**
+	 * Returns the ID of an action name, assigning the next ID if the name is not registered. 
+	 */
+	public static synchronized int getId(String actionName) {
+		Integer id = ids.get(actionName);
+		
+		if (id == null) {
+			id = names.size();
+			ids.put(actionName, id);
+			names.add(actionName);
+		}
+		
+		return id;
+	}
+
+	/**
+	 * Returns the action name with the given ID. 
+	 */
+	public static synchronized String getName(int id) {
+		return names.get(id);
+	}
+
+	/**
+	 * Returns the number of registered action names. 
+	 */
+	public static synchronized int size() {
+		return names.size();
+	}
+}
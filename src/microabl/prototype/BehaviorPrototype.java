@@ -1,13 +1,13 @@
 package microabl.prototype;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 /**
  * 
  * Represents an ABL behavior. These are prototype behaviors used to define the 
  * behavior library and are not added to the ABT. 
  * 
- * Behavior parameters are bound to behavior-scoped variables. 
+ * Behavior parameters are bound to behavior-scoped variables. When the behavior is compiled,
+ * its variables are assigned to slots in a variable layout, starting with the parameters. 
  * 
  * The following behavior types are supported:
  *   Sequential - steps are added to the ABT one at a time.
@@ -48,6 +48,15 @@ public class BehaviorPrototype {
 	/** number of child steps needed for success in a parallel behavior, defaults to all steps */ 
 	private int numberNeededForSuccess = 0;   
 
+	/** milliseconds the behavior has to complete after it is expanded, before it fails (0 if unlimited) */ 
+	private long deadline = 0; 
+
+	/** slots of the behavior variables (null if the behavior is not compiled), published after parameterSlots */ 
+	private volatile VariableLayout layout; 
+
+	/** slots of the parameters in the behavior signature */ 
+	private int[] parameterSlots; 
+
     private BehaviorPrototype(BehaviorType behaviorType, String goalName) {
     	this.behaviorType = behaviorType;
     	this.goalName = goalName; 
@@ -105,6 +114,11 @@ public class BehaviorPrototype {
     	return this;   
     }
 
+    public BehaviorPrototype setDeadline(long deadline) {
+    	this.deadline = deadline;
+    	return this;
+    }
+
     public BehaviorPrototype setSpecificity(int specificity) {
     	this.specificity = specificity;
     	return this; 
@@ -140,20 +154,79 @@ public class BehaviorPrototype {
 	 * in the behavior signature.
 	 *  
 	 * @param parameters - the goal parameters. 
-	 * @return a mapping of behavior variables to goal parameter values. 
+	 * @return a frame of behavior variables with the goal parameter values bound. 
 	 */
-	public HashMap<String, Object> bindVariables(Object[] parameters) {
-		HashMap<String, Object> variables = new HashMap<String, Object>();
+	public VariableFrame bindVariables(Object[] parameters) {
+		VariableLayout layout = this.layout;
+		if (layout == null) {
+			compile();
+			layout = this.layout;
+		}
+		
+		VariableFrame variables = new VariableFrame(layout);
  
 		int index = 0;
 		for (Object parameter : parameters) { 
-			variables.put(parameterNames.get(index), parameter);
+			variables.set(parameterSlots[index], parameter);
 			index++;
 		}
   
 		return variables;
 	}
+
+	/**
+	 * Compiles the behavior. Assigns slots to the parameters and to the variables referenced by
+	 * conditions and steps, and compiles the conditions against the resulting layout. Has no 
+	 * effect if the behavior is already compiled. 
+	 */
+	public synchronized void compile() {
+		if (layout != null) {
+			return;
+		}
+		
+		VariableLayout layout = new VariableLayout();
+		
+		parameterSlots = new int[parameterNames.size()];
+		for (int index=0; index<parameterSlots.length; index++) {
+			parameterSlots[index] = layout.addVariable(parameterNames.get(index));
+		}
+
+		compileConditions(preconditions, layout);
+		compileConditions(contextConditions, layout);
+		compileConditions(successConditions, layout);
+		
+		if (steps != null) {
+			for (StepPrototype step : steps) {
+				step.compile(layout);
+				compileConditions(step.getWaitConditions(), layout);
+			}
+		}
+		
+		this.layout = layout;
+	}
+
+	/**
+	 * Compiles a list of conditions against the layout. 
+	 */
+	private void compileConditions(ArrayList<ConditionPrototype> conditions, VariableLayout layout) {
+		if (conditions != null) {
+			for (ConditionPrototype condition : conditions) {
+				condition.compile(layout);
+			}
+		}
+	}
+
+	/**
+	 * Returns the variable layout of the behavior (null if the behavior is not compiled). 
+	 */
+	public VariableLayout getLayout() {
+		return layout;
+	}
     
+    public int getNumParameters() {
+    	return parameterClasses.size();
+    }
+
     public int getNumberNeededForSuccess() {
     	return numberNeededForSuccess;
     }
@@ -169,6 +242,10 @@ public class BehaviorPrototype {
 	public int getSpecificity() {
 		return specificity;
 	}
+
+	public long getDeadline() {
+		return deadline;
+	}
 	
 	public boolean isSequential() {
 		return behaviorType == BehaviorType.Sequential;
@@ -1,10 +1,17 @@
 package microabl.prototype;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import microabl.abt.ABTRuntimeError;
+import microabl.wm.AttributeAccessor;
 import microabl.wm.WME;
+import microabl.wm.WorkingMemory;
 /**
  * Represents a set of ABL conditions. Conditions perform checks on elements
  * in working memory (WMEs). 
@@ -24,6 +31,7 @@ import microabl.wm.WME;
  *     wmeClass: the WME class to use for method look up. 
  *     methodName: the name of the static method to invoke.
  *     methodParameters: a list of parameters to provide the WME method. 
+ *     mentalCondition: alternatively, a predicate over the behavior variables (see MentalCondition) 
  *   
  * The following comparison types are supported: 
  *   Equals - invokes the equals method on the attribute,
@@ -34,6 +42,17 @@ import microabl.wm.WME;
  *   gte - >= (int or double type)
  *   lt  - <  (int or double type)
  *   lte - <= (int or double type) 
+ *   
+ * WME and negation conditions are compiled before they are evaluated. Compiling a condition 
+ * resolves attribute accessors for the WME class and variable slots in the behavior's variable
+ * layout, and creates a specialized predicate for each test. Conditions are compiled when a 
+ * behavior library is compiled, or on first use, and are recompiled if tests or bindings are 
+ * added afterwards. A condition shared by behaviors is compiled once for each layout. 
+ * 
+ * Equals and eq tests can be answered by hash indexes in working memory, and gt, gte, lt, and
+ * lte tests by range indexes. When an index exists for a tested attribute, only the WMEs with 
+ * a matching attribute value are tested. Range tests on the same attribute are combined into
+ * a single range, with bounds taken from literals or bound variables. 
  */
 public class ConditionPrototype {
 
@@ -62,6 +81,18 @@ public class ConditionPrototype {
 			this.value = value;
 			this.comparison = comparison; 
 		}
+
+		public String getAttribute() {
+			return attribute;
+		}
+
+		public Object getValue() {
+			return value;
+		}
+
+		public Comparison getComparison() {
+			return comparison;
+		}
 	}
 
 	/** the condition type (see definitions in class header) */ 
@@ -84,6 +115,78 @@ public class ConditionPrototype {
 	
 	/** parameters of the WME method to invoke (for mental conditions only) **/ 
 	private Object[] methodParameters = new Object[0]; // considered literals, except for Variable instances 
+
+	/** invoker for the WME method (for mental conditions only, null if no method name is set) **/ 
+	private MethodInvoker invoker; 
+
+	/** predicate evaluated instead of a WME method (for mental conditions only, null if a method is invoked) **/ 
+	private MentalCondition mentalCondition; 
+
+	/** compiled tests and bindings (null if not yet compiled) */ 
+	private volatile Compiled compiled; 
+
+	/** compiled tests and bindings for other layouts, if the condition is shared by behaviors (null if none) */ 
+	private volatile ConcurrentHashMap<VariableLayout, Compiled> layoutCompiled; 
+
+	/**
+	 * Compiled form of the condition tests and bindings, for a variable layout. 
+	 */
+	private static class Compiled {
+
+		/** the layout variable slots are resolved against */ 
+		private final VariableLayout layout;
+		
+		/** test predicates */ 
+		private final TestPredicate[] tests;
+
+		/** test predicates that compare attributes to literals */ 
+		private final TestPredicate[] literalTests;
+
+		/** test predicates that compare attributes to behavior variables */ 
+		private final TestPredicate[] variableTests;
+		
+		/** accessors for bound attributes */ 
+		private final AttributeAccessor[] bindingAccessors;
+		
+		/** slots of the variables to bind the attributes to */ 
+		private final int[] bindingSlots;
+
+		/** slot of the WME variable (-1 if the WME is not bound) */ 
+		private final int wmeSlot;
+
+		/** attributes with equality tests (Equals or eq) */ 
+		private final String[] equalityAttributes;
+
+		/** literal values for equality tests (null for variables) */ 
+		private final Object[] equalityValues;
+
+		/** variable slots for equality tests (-1 for literals) */ 
+		private final int[] equalitySlots;
+
+		/** attributes with range tests (gt, gte, lt, or lte) */ 
+		private final String[] rangeAttributes;
+
+		/** range tests for each attribute */ 
+		private final Test[][] rangeTests;
+		
+		private Compiled(VariableLayout layout, TestPredicate[] tests, TestPredicate[] literalTests, TestPredicate[] variableTests, 
+				AttributeAccessor[] bindingAccessors, int[] bindingSlots, int wmeSlot, 
+				String[] equalityAttributes, Object[] equalityValues, int[] equalitySlots, 
+				String[] rangeAttributes, Test[][] rangeTests) {
+			this.layout = layout;
+			this.tests = tests;
+			this.literalTests = literalTests;
+			this.variableTests = variableTests;
+			this.bindingAccessors = bindingAccessors;
+			this.bindingSlots = bindingSlots;
+			this.wmeSlot = wmeSlot;
+			this.equalityAttributes = equalityAttributes;
+			this.equalityValues = equalityValues;
+			this.equalitySlots = equalitySlots;
+			this.rangeAttributes = rangeAttributes;
+			this.rangeTests = rangeTests;
+		}
+	}
 		
 	private ConditionPrototype(ConditionType type) {
 		this.type = type;
@@ -124,12 +227,25 @@ public class ConditionPrototype {
 	public static ConditionPrototype createMental(Class wmeClass) { 
 		return new ConditionPrototype(ConditionType.Mental, wmeClass); 
 	}
+
+	/**
+	 * Instantiates a mental condition that evaluates a predicate over the behavior variables. 
+	 * No method is looked up or invoked by reflection. 
+	 * 
+	 * @param mentalCondition - the predicate to evaluate 
+	 */
+	public static ConditionPrototype createMental(MentalCondition mentalCondition) { 
+		ConditionPrototype condition = new ConditionPrototype(ConditionType.Mental);
+		condition.mentalCondition = mentalCondition;
+		return condition;
+	}
 	
 	/**
 	 * Adds a binding that maps the WME attribute to the behavior-scoped variable. 
 	 */
 	public ConditionPrototype addBinding(String attribute, String variable) {
 		bindings.put(attribute, variable);
+		clearCompiled();
 		return this;
 	}  
 
@@ -138,6 +254,7 @@ public class ConditionPrototype {
 	 */
 	public ConditionPrototype addTest(String attribute, Comparison comparison, Object value) {
 		tests.add(new Test(attribute, value, comparison)); 
+		clearCompiled();
 		return this; 
 	}   
 
@@ -146,6 +263,7 @@ public class ConditionPrototype {
 	 */
 	public ConditionPrototype setWMEVariable(String wmeVariable) {
 		this.wmeVariable = wmeVariable;
+		clearCompiled();
 		return this; 
 	}  
 
@@ -154,6 +272,7 @@ public class ConditionPrototype {
 	 */
 	public ConditionPrototype setMethodName(String methodName) {
 		this.methodName = methodName;
+		this.invoker = new MethodInvoker(wmeClass, methodName);
 		return this; 
 	} 
 	 
@@ -181,6 +300,10 @@ public class ConditionPrototype {
 		return wmeClass;
 	}
 	
+	public ConditionType getConditionType() {
+		return type;
+	}
+	
 	public boolean isWMECheck() {
 		return type == ConditionType.WME;
 	}
@@ -189,18 +312,25 @@ public class ConditionPrototype {
 		return type == ConditionType.Negation;
 	}
  
+	public ArrayList<Test> getTests() {
+		return tests;
+	}
+ 
 	public HashMap<String, String> getBindings() {
 		return bindings;
 	}
  
 	/**
-	 * Invokes a mental condition. Mental condition checks invoke Java methods 
-	 * and block the execution of the ABT. 
+	 * Invokes a mental condition. Mental condition checks invoke Java methods, or evaluate 
+	 * a MentalCondition, and block the execution of the ABT. 
 	 * 
 	 * @param variables - list of behavior variables. 
 	 * @return true if the condition succeeds 
 	 */
-	public boolean execute(HashMap<String, Object> variables) {
+	public boolean execute(VariableFrame variables) {
+		if (mentalCondition != null) {
+			return mentalCondition.test(variables);
+		}
 		
 		// bind parameters to behavior variables 
 		Object[] parameters = new Object[0];
@@ -209,19 +339,17 @@ public class ConditionPrototype {
 
 			for (int index=0; index<methodParameters.length; index++) { 
 				parameters[index] = (methodParameters[index] instanceof Variable) ? 
-						variables.get(((Variable)methodParameters[index]).getName()) : methodParameters[index];
+						variables.get((Variable)methodParameters[index]) : methodParameters[index];
 			}
 		}
 		 
-		// look up parameter classes 
-		Class[] classes = new Class[parameters .length];			
-		for (int i=0; i<parameters.length; i++) {
-			classes[i] = parameters[i].getClass();
-		}
- 
 		// invoke the method 
 		try {
-			Object result = wmeClass.getMethod(methodName, classes).invoke(null, parameters);
+			if (invoker == null) {
+				throw new NoSuchMethodException("No method name specified");
+			}
+			
+			Object result = invoker.invoke(parameters);
 			if (result.equals(true)) {
 				return true;
 			}
@@ -232,139 +360,335 @@ public class ConditionPrototype {
 				throw new ABTRuntimeError("Mental condition does not return a boolean result: " + methodName);
 			}
 		}
-		catch (Exception e) {
-			e.printStackTrace(); 
-			throw new ABTRuntimeError("Mental condition failed: " + e.getMessage());
+		catch (Throwable e) {
+			throw new ABTRuntimeError("Mental condition failed: " + e.getMessage(), e);
 		}
 	} 
 	  
-	/** 
-	 * Checks if the given WME meets the condition tests. Tests conditions for WME and negation conditions. 
+	/**
+	 * Compiles the condition tests and bindings, resolving variables against the layout of the
+	 * behavior that uses the condition. Variables of mental conditions are resolved, and the method 
+	 * of a mental condition is resolved if it is not overloaded. 
 	 * 
-	 * @param wme - the wme instance to test 
+	 * @param layout - the variable layout of the behavior 
+	 */
+	public void compile(VariableLayout layout) {
+		if (type == ConditionType.Mental) {
+			if (methodParameters != null) {
+				for (Object parameter : methodParameters) {
+					if (parameter instanceof Variable) {
+						((Variable)parameter).resolve(layout);
+					}
+				}
+			}
+			
+			if (invoker != null) {
+				invoker.prepare(methodParameters != null ? methodParameters.length : 0);
+			}
+		}
+		else {
+			getCompiled(layout);
+		}
+	}
+
+	/**
+	 * Returns the condition compiled for the layout, compiling it if needed. Only compiling 
+	 * locks the condition. 
+	 */
+	private Compiled getCompiled(VariableLayout layout) {
+		Compiled result = compiled;
+		if (result != null && result.layout == layout) {
+			return result;
+		}
+		
+		ConcurrentHashMap<VariableLayout, Compiled> others = layoutCompiled;
+		if (others != null) {
+			result = others.get(layout);
+			if (result != null) {
+				return result;
+			}
+		}
+		
+		synchronized (this) {
+			if (compiled == null) {
+				compiled = createCompiled(layout); 
+				return compiled;
+			}
+			else if (compiled.layout == layout) {
+				return compiled;
+			}
+			
+			if (layoutCompiled == null) {
+				layoutCompiled = new ConcurrentHashMap<VariableLayout, Compiled>();
+			}
+			
+			result = layoutCompiled.get(layout);
+			if (result == null) {
+				result = createCompiled(layout);
+				layoutCompiled.put(layout, result);
+			}
+			
+			return result;
+		}
+	}
+
+	/**
+	 * Discards compiled forms of the condition after tests or bindings are modified. 
+	 */
+	private synchronized void clearCompiled() {
+		compiled = null;
+		layoutCompiled = null;
+	}
+
+	/**
+	 * Creates the compiled form of the condition for a layout. 
+	 */
+	private Compiled createCompiled(VariableLayout layout) {
+		TestPredicate[] predicates = new TestPredicate[tests.size()];
+		ArrayList<TestPredicate> literalPredicates = new ArrayList<TestPredicate>();
+		ArrayList<TestPredicate> variablePredicates = new ArrayList<TestPredicate>();
+		ArrayList<Test> equalityTests = new ArrayList<Test>();
+		LinkedHashMap<String, ArrayList<Test>> rangeTests = new LinkedHashMap<String, ArrayList<Test>>();
+		for (int index=0; index<predicates.length; index++) {
+			Test test = tests.get(index);
+			predicates[index] = TestPredicate.create(WME.getAccessorOrLookup(wmeClass, test.attribute), test.comparison, test.value, layout);
+			
+			if (test.value instanceof Variable) {
+				((Variable)test.value).resolve(layout);
+				variablePredicates.add(predicates[index]);
+			}
+			else {
+				literalPredicates.add(predicates[index]);
+			}
+			
+			if (test.comparison == Comparison.Equals || test.comparison == Comparison.eq) {
+				equalityTests.add(test);
+			}
+			else if (test.comparison == Comparison.gt || test.comparison == Comparison.gte || 
+					test.comparison == Comparison.lt || test.comparison == Comparison.lte) {
+				if (!rangeTests.containsKey(test.attribute)) {
+					rangeTests.put(test.attribute, new ArrayList<Test>());
+				}
+				
+				rangeTests.get(test.attribute).add(test);
+			}
+		}
+
+		AttributeAccessor[] bindingAccessors = new AttributeAccessor[bindings.size()];
+		int[] bindingSlots = new int[bindings.size()];
+		int index = 0; 
+		for (String attribute : bindings.keySet()) {
+			bindingAccessors[index] = WME.getAccessorOrLookup(wmeClass, attribute);
+			bindingSlots[index] = layout.addVariable(bindings.get(attribute));
+			index++;
+		}
+		
+		int wmeSlot = (wmeVariable != null) ? layout.addVariable(wmeVariable) : -1;
+
+		String[] equalityAttributes = new String[equalityTests.size()];
+		Object[] equalityValues = new Object[equalityTests.size()];
+		int[] equalitySlots = new int[equalityTests.size()];
+		for (index=0; index<equalityAttributes.length; index++) {
+			Test test = equalityTests.get(index);
+			equalityAttributes[index] = test.attribute;
+			
+			if (test.value instanceof Variable) {
+				equalitySlots[index] = layout.addVariable(((Variable)test.value).getName());
+			}
+			else {
+				equalityValues[index] = test.value;
+				equalitySlots[index] = -1;
+			}
+		}
+
+		String[] rangeAttributes = rangeTests.keySet().toArray(new String[rangeTests.size()]);
+		Test[][] attributeTests = new Test[rangeAttributes.length][];
+		for (index=0; index<rangeAttributes.length; index++) {
+			attributeTests[index] = rangeTests.get(rangeAttributes[index]).toArray(new Test[0]);
+		}
+		
+		return new Compiled(layout, predicates, literalPredicates.toArray(new TestPredicate[0]), variablePredicates.toArray(new TestPredicate[0]), 
+				bindingAccessors, bindingSlots, wmeSlot, equalityAttributes, equalityValues, equalitySlots, rangeAttributes, attributeTests);
+	}
+
+	/**
+	 * Returns the WMEs in working memory that are candidates for the condition tests. If hash
+	 * indexes exist for attributes with equality tests, then the smallest set of WMEs retrieved
+	 * from the indexes is returned. Otherwise, if range indexes exist for attributes with range
+	 * tests, then the smallest range retrieved from the indexes is returned. Otherwise, all WMEs 
+	 * of the condition class are returned. For WME and negation conditions. 
+	 * 
+	 * @param workingMemory - the working memory to retrieve WMEs from 
 	 * @param variables - list of behavior variables. 
-	 * @return true if the WME meets the condition tests. 
 	 */
-	public boolean testWME(WME wme, HashMap<String, Object> variables) {		
+	public Collection<WME> getCandidateWMEs(WorkingMemory workingMemory, VariableFrame variables) {
+		Compiled compiled = getCompiled(variables.getLayout());
 
-		for (Test test : tests) { 
+		Set<WME> candidates = null; 
+		for (int index=0; index<compiled.equalityAttributes.length; index++) {
+			Object value = (compiled.equalitySlots[index] >= 0) ? 
+					variables.get(compiled.equalitySlots[index]) : compiled.equalityValues[index];
 			
-			// look up the WME attribute
-			Object wmeValue = wme.getAttribute(test.attribute);
- 
-			// retrieve the condition value. If not a literal, look up the behavior variable. 
-			Object conditionValue = test.value;			
-			if (conditionValue != null && conditionValue instanceof Variable) {
-				conditionValue = variables.get(((Variable)conditionValue).getName()); 
+			Set<WME> matching = workingMemory.getWMEs(wmeClass, compiled.equalityAttributes[index], value);
+			if (matching != null && (candidates == null || matching.size() < candidates.size())) {
+				candidates = matching;
 			}
+		}
+		
+		if (candidates != null) {
+			return candidates;
+		}
+		
+		Collection<WME> range = null;
+		for (int index=0; index<compiled.rangeAttributes.length; index++) {
+			Collection<WME> matching = getRangeCandidates(workingMemory, compiled.rangeAttributes[index], compiled.rangeTests[index], variables);
+			if (matching != null && (range == null || matching.size() < range.size())) {
+				range = matching;
+			}
+		}
+		
+		return (range != null) ? range : workingMemory.getWMEs(wmeClass);
+	}
+
+	/**
+	 * Retrieves the WMEs that meet the range tests on an attribute from a range index. Returns null
+	 * if the attribute is not indexed. 
+	 */
+	private Collection<WME> getRangeCandidates(WorkingMemory workingMemory, String attribute, Test[] rangeTests, VariableFrame variables) {
+		if (!workingMemory.hasRangeIndex(wmeClass, attribute)) {
+			return null;
+		}
 
+		double lower = Double.NEGATIVE_INFINITY;
+		double upper = Double.POSITIVE_INFINITY;
+		boolean lowerInclusive = true; 
+		boolean upperInclusive = true; 
+		
+		for (Test test : rangeTests) {
+			Object value = (test.value instanceof Variable) ? variables.get((Variable)test.value) : test.value; 
+			
+			// numeric comparisons fail for non-numeric values 
+			if (!(value instanceof Integer) && !(value instanceof Double)) {
+				return Collections.<WME>emptySet();
+			}
+			
+			double bound = ((Number)value).doubleValue();
 			switch (test.comparison) {
-			case Equals:				
-				if (!testEqual(wmeValue, conditionValue)) {
-					return false; 
-				}
-				break;
-			case NEquals: 				
-				if (!testNEqual(wmeValue, conditionValue)) {
-					return false; 
+			case gt:
+				if (bound > lower || (bound == lower && lowerInclusive)) {
+					lower = bound; 
+					lowerInclusive = false;
 				}
 				break;
-			case eq:				
-				if (!testEq(wmeValue, conditionValue)) {
-					return false; 
+			case gte:
+				if (bound > lower) {
+					lower = bound; 
+					lowerInclusive = true;
 				}
 				break;
-			case neq:				
-				if (!testNeq(wmeValue, conditionValue)) {
-					return false; 
+			case lt:
+				if (bound < upper || (bound == upper && upperInclusive)) {
+					upper = bound; 
+					upperInclusive = false;
 				}
 				break;
-			default:				
-				if (!test(wmeValue, conditionValue, test.comparison)) {
-					return false; 
+			case lte:
+				if (bound < upper) {
+					upper = bound; 
+					upperInclusive = true;
 				}
 				break;
 			}
 		}
 		
+		return workingMemory.getWMEs(wmeClass, attribute, lower, lowerInclusive, upper, upperInclusive);
+	}
+
+	/** 
+	 * Checks if the given WME meets the condition tests. Tests conditions for WME and negation conditions. 
+	 * 
+	 * @param wme - the wme instance to test 
+	 * @param variables - list of behavior variables. 
+	 * @return true if the WME meets the condition tests. 
+	 */
+	public boolean testWME(WME wme, VariableFrame variables) {		
+		for (TestPredicate test : getCompiled(variables.getLayout()).tests) {
+			if (!test.test(wme, variables)) {
+				return false; 
+			}
+		}
+		
 		return true;
 	} 
 
-	private final boolean testEqual(Object wmeValue, Object conditionValue) {
-		if (wmeValue == null) {
-			return (conditionValue == null);
-		}
-		else {
-			return wmeValue.equals(conditionValue);
+	/** 
+	 * Checks if the given WME meets the condition tests that compare attributes to literals. 
+	 * The result does not depend on behavior variables or layouts. For WME and negation conditions. 
+	 */
+	public boolean testLiterals(WME wme) {		
+		Compiled compiled = this.compiled;
+		if (compiled == null) {
+			compiled = getCompiled(new VariableLayout());
 		}
-	}
 
-	private final boolean testNEqual(Object wmeValue, Object conditionValue) {
-		if (wmeValue == null) {
-			return (conditionValue != null);
-		}
-		else {
-			return !wmeValue.equals(conditionValue);
+		for (TestPredicate test : compiled.literalTests) {
+			if (!test.test(wme, null)) {
+				return false; 
+			}
 		}
-	}
- 
-	private final boolean testEq(Object wmeValue, Object conditionValue) {
+		
+		return true;
+	} 
 
-		if (wmeValue != null && conditionValue != null && wmeValue instanceof Integer && conditionValue instanceof Integer) {
-			return ((Integer)wmeValue).equals(conditionValue); 
-		}
-		else {
-			return false;
+	/** 
+	 * Checks if the given WME meets the condition tests that compare attributes to behavior 
+	 * variables. For WME and negation conditions. 
+	 * 
+	 * @param wme - the wme instance to test 
+	 * @param variables - list of behavior variables. 
+	 */
+	public boolean testVariables(WME wme, VariableFrame variables) {		
+		for (TestPredicate test : getCompiled(variables.getLayout()).variableTests) {
+			if (!test.test(wme, variables)) {
+				return false; 
+			}
 		}
+		
+		return true;
 	} 
-  
-	private final boolean testNeq(Object wmeValue, Object conditionValue) {
 
-		if (wmeValue != null && conditionValue != null && wmeValue instanceof Integer && conditionValue instanceof Integer) {
-			return !((Integer)wmeValue).equals(conditionValue); 
-		}
-		else {
-			return false;
+	/**
+	 * Returns the names of the behavior variables referenced by the condition tests. 
+	 */
+	public ArrayList<String> getTestVariables() {
+		ArrayList<String> names = new ArrayList<String>();
+		
+		for (Test test : tests) {
+			if (test.value instanceof Variable && !names.contains(((Variable)test.value).getName())) {
+				names.add(((Variable)test.value).getName());
+			}
 		}
+		
+		return names;
 	}
 
- 	private final boolean test(Object wmeValue, Object conditionValue, Comparison comparison) {
-		if (wmeValue == null || conditionValue == null) {
-			return false;   
-		} 
- 
-		// cast the wme attribute to a double 
-		Double wme = null; 
-		if (wmeValue instanceof Integer) {
-			wme = ((Integer)wmeValue).doubleValue();
-		}
-		else if (wmeValue instanceof Double) {
-			wme = (Double)wmeValue; 
-		}
+	/**
+	 * Binds WME attributes to behavior variables, and binds the WME instance to a variable
+	 * if a WME variable is specified. For WME conditions. 
+	 * 
+	 * @param wme - the wme instance that matched the condition tests 
+	 * @param variables - list of behavior variables. 
+	 */
+	public void bindWME(WME wme, VariableFrame variables) {
+		Compiled compiled = getCompiled(variables.getLayout());
 
-		// cast the condition value to a double 
-		Double condition = null;
-		if (conditionValue instanceof Integer) {
-			condition = ((Integer)conditionValue).doubleValue();
-		} 
-		else if (conditionValue instanceof Double) {
-			condition = (Double)conditionValue; 
-		} 
- 
-		if (wme != null && condition != null) {
-			 switch (comparison) {
-			 case lt: 
-				 return wme < condition; 
-			 case lte:  
-				 return wme <= condition; 
-			 case gt: 
-				 return wme > condition; 
-			 case gte: 
-				 return wme >= condition; 
-			 }
+		for (int index=0; index<compiled.bindingAccessors.length; index++) {
+			variables.set(compiled.bindingSlots[index], compiled.bindingAccessors[index].get(wme));
 		}
 		
-		return false;
+		if (compiled.wmeSlot >= 0) {
+			variables.set(compiled.wmeSlot, wme);
+		} 
 	}
   
 	public String toString() {
@@ -394,6 +718,9 @@ public class ConditionPrototype {
 
 			return result.toString();
 		}
+		else if (mentalCondition != null) {
+			return "Mental condition: " + mentalCondition;
+		}
 		else { 	 
 			return "Mental condition: " + wmeClass + "." + methodName;
 		}		
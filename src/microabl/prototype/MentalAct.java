@@ -0,0 +1,18 @@
+package microabl.prototype;
+/**
+ * A mental act specified as a function of the variables of the enclosing behavior, rather 
+ * than a static method resolved by name. The result is bound to the step's result variable, 
+ * if one is specified. 
+ * 
+ * @see StepPrototype#createMentalAct(MentalAct)
+ */
+public interface MentalAct {
+
+	/**
+	 * Performs the mental act. 
+	 * 
+	 * @param variables - variables of the enclosing behavior 
+	 * @return the result of the act (may be null) 
+	 */
+	public Object execute(VariableFrame variables);
+}
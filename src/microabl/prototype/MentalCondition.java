@@ -0,0 +1,17 @@
+package microabl.prototype;
+/**
+ * A mental condition specified as a predicate over the variables of the enclosing behavior,
+ * rather than a static method resolved by name. 
+ * 
+ * @see ConditionPrototype#createMental(MentalCondition)
+ */
+public interface MentalCondition {
+
+	/**
+	 * Evaluates the condition. 
+	 * 
+	 * @param variables - variables of the enclosing behavior 
+	 * @return true if the condition succeeds 
+	 */
+	public boolean test(VariableFrame variables);
+}
@@ -0,0 +1,206 @@
+package microabl.prototype;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+/**
+ * Invokes a static method of a class, selected by name and the runtime classes of the arguments
+ * (the method's parameter types must match the argument classes exactly, as with Class.getMethod).
+ * A null argument matches any parameter type that is not primitive, and the method must be the
+ * only one with the name that matches the arguments.
+ *
+ * Methods are resolved once for each combination of argument classes and bound to a method handle
+ * that takes the arguments as an array. The most recently invoked method is checked first, so
+ * repeated invocations with the same argument classes do not look up the method. Invokers are
+ * thread safe and are shared by the nodes created from a step or condition prototype.
+ */
+public class MethodInvoker {
+
+	/** the class declaring the method */
+	private final Class<?> methodClass;
+
+	/** the name of the static method */
+	private final String methodName;
+
+	/** the most recently invoked method (null if no method is resolved) */
+	private volatile Target last;
+
+	/** methods resolved for each list of argument classes */
+	private final ConcurrentHashMap<List<Class<?>>, Target> targets = new ConcurrentHashMap<List<Class<?>>, Target>();
+
+	/**
+	 * Creates an invoker for a static method.
+	 *
+	 * @param methodClass - the class declaring the method
+	 * @param methodName - the name of the static method
+	 */
+	public MethodInvoker(Class<?> methodClass, String methodName) {
+		this.methodClass = methodClass;
+		this.methodName = methodName;
+	}
+
+	/**
+	 * Resolves the method ahead of the first invocation if the class has a single public
+	 * method with the name and number of parameters.
+	 */
+	public void prepare(int numParameters) {
+		if (last != null) {
+			return;
+		}
+
+		Method candidate = null;
+		for (Method method : methodClass.getMethods()) {
+			if (method.getName().equals(methodName) && method.getParameterTypes().length == numParameters) {
+				if (candidate != null) {
+					return;
+				}
+
+				candidate = method;
+			}
+		}
+
+		if (candidate != null && Modifier.isStatic(candidate.getModifiers())) {
+			try {
+				Target target = new Target(candidate.getParameterTypes(), bind(candidate));
+				targets.putIfAbsent(Arrays.<Class<?>>asList(target.classes), target);
+				last = target;
+			}
+			catch (IllegalAccessException e) {
+				// resolved when the method is invoked
+			}
+		}
+	}
+
+	/**
+	 * Invokes the method with the given arguments. Exceptions thrown by the method are rethrown.
+	 *
+	 * @return the result of the method, or null for void methods
+	 */
+	public Object invoke(Object[] arguments) throws Throwable {
+		Target target = last;
+
+		if (target == null || !target.matches(arguments)) {
+			target = resolve(arguments);
+			last = target;
+		}
+
+		return target.handle.invokeExact(arguments);
+	}
+
+	/**
+	 * Returns the method for the classes of the arguments, resolving it if needed.
+	 */
+	private Target resolve(Object[] arguments) throws NoSuchMethodException, IllegalAccessException {
+		Class<?>[] classes = new Class<?>[arguments.length];
+		boolean nullArgument = false;
+		for (int index=0; index<arguments.length; index++) {
+			classes[index] = (arguments[index] != null) ? arguments[index].getClass() : null;
+			nullArgument |= (arguments[index] == null);
+		}
+
+		List<Class<?>> key = Arrays.<Class<?>>asList(classes);
+		Target target = targets.get(key);
+
+		if (target == null) {
+			Method method = nullArgument ? findMethod(classes) : methodClass.getMethod(methodName, classes);
+			if (!Modifier.isStatic(method.getModifiers())) {
+				throw new NoSuchMethodException("Method is not static: " + methodName);
+			}
+
+			target = new Target(classes, bind(method));
+			targets.putIfAbsent(key, target);
+		}
+
+		return target;
+	}
+
+	/**
+	 * Finds the method for argument classes that include null arguments (null classes).
+	 */
+	private Method findMethod(Class<?>[] classes) throws NoSuchMethodException {
+		Method result = null;
+
+		for (Method method : methodClass.getMethods()) {
+			Class<?>[] parameterTypes = method.getParameterTypes();
+			if (!method.getName().equals(methodName) || parameterTypes.length != classes.length) {
+				continue;
+			}
+
+			boolean matches = true;
+			for (int index=0; index<classes.length && matches; index++) {
+				matches = (classes[index] != null) ? parameterTypes[index] == classes[index] : !parameterTypes[index].isPrimitive();
+			}
+
+			if (matches) {
+				if (result != null) {
+					throw new NoSuchMethodException("Ambiguous method for null argument: " + methodClass.getName() + "." + methodName);
+				}
+
+				result = method;
+			}
+		}
+
+		if (result == null) {
+			throw new NoSuchMethodException("No method for null argument: " + methodClass.getName() + "." + methodName);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Binds a static method to a handle that takes the arguments as an array and returns an Object.
+	 */
+	private static MethodHandle bind(Method method) throws IllegalAccessException {
+		try {
+			method.setAccessible(true);
+		}
+		catch (RuntimeException e) {
+			// public methods of public classes are accessible without it
+		}
+
+		int numParameters = method.getParameterTypes().length;
+		return MethodHandles.lookup().unreflect(method)
+				.asType(MethodType.genericMethodType(numParameters))
+				.asSpreader(Object[].class, numParameters);
+	}
+
+	/**
+	 * A resolved method and the argument classes it was resolved for.
+	 */
+	private static class Target {
+
+		/** the argument classes (null for null arguments) */
+		private final Class<?>[] classes;
+
+		/** handle taking the arguments as an array */
+		private final MethodHandle handle;
+
+		private Target(Class<?>[] classes, MethodHandle handle) {
+			this.classes = classes;
+			this.handle = handle;
+		}
+
+		/**
+		 * Returns true if the classes of the arguments match the classes the method was resolved for.
+		 */
+		private boolean matches(Object[] arguments) {
+			if (arguments.length != classes.length) {
+				return false;
+			}
+
+			for (int index=0; index<arguments.length; index++) {
+				Class<?> argumentClass = (arguments[index] != null) ? arguments[index].getClass() : null;
+				if (argumentClass != classes[index]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+	}
+}
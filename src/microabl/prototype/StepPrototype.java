@@ -21,6 +21,7 @@ import microabl.abt.WaitStepNode;
  * 	Action - performs a physcal action
  *    stepName: name of the physical action
  *    parameters: action parameters, specified as literals and Variables
+ *    resultBinding: an optional parameter for binding the action result to a behavior-scoped variable 
  *    
  *  Subgoal - creates a new sub goal with the specified parameters
  *    stepName: name of the sub goal
@@ -32,6 +33,7 @@ import microabl.abt.WaitStepNode;
  *    
  *  WaitStep - suspended until wait conditions are met 
  *    waitConditions: conditions to wait on 
+ *    timeout: an optional number of milliseconds to wait before the step fails 
  *    
  *  FailStep - immediately returns failure 
  *  
@@ -41,6 +43,7 @@ import microabl.abt.WaitStepNode;
  *    actionClass: name of the class that contains the method 
  *    stepName: name of the static method to invoke
  *    parameters: method parameters, specified as literals and Variables
+ *    mentalAct: alternatively, a function of the behavior variables (see MentalAct) 
  *    resultBinding: an optional parameter for binding the result to a behavior-scoped variable 
  *     
  * The following modifiers are supported:
@@ -63,6 +66,9 @@ public class StepPrototype {
 
 	/** the step name */ 
 	private String stepName; 	// action name, subgoal name, mental act method name
+
+	/** ID of the action name, assigned when the step is compiled (only for the action step type) */ 
+	private int actionId = -1; 
     
 	/** the step parameters (for goals, actions, and mental acts */ 
 	private Object[] parameters = new Object[0]; // considered literals, except for Variable instances 
@@ -79,10 +85,19 @@ public class StepPrototype {
 	/** conditions that suspend the step (only for the wait step type) */ 
 	private ArrayList<ConditionPrototype> waitConditions = new ArrayList<ConditionPrototype>();
 
+	/** milliseconds to wait before the step fails, 0 waits indefinitely (only for the wait step type) */ 
+	private long timeout = 0; 
+
 	/** name of the class to perform mental act (only for the mental act step type) */ 
 	private Class actionClass; 
 
-	/** name of variable to bind after performing a mental act (only for the mental act step type) */ 
+	/** invoker for the mental act method, shared by the mental act nodes (only for the mental act step type) */ 
+	private MethodInvoker invoker; 
+
+	/** function performed instead of a method (only for the mental act step type, null if a method is invoked) */ 
+	private MentalAct mentalAct; 
+
+	/** name of variable to bind to the result of an action or mental act (only for the action and mental act step types) */ 
 	private String resultBinding;  
 
 	private StepPrototype(StepType stepType) {
@@ -97,6 +112,7 @@ public class StepPrototype {
 	private StepPrototype(StepType stepType, Class actionName, String stepName) {
 		this(stepType, stepName);
 		this.actionClass = actionName; 
+		this.invoker = new MethodInvoker(actionName, stepName);
 	}
 
 	/**
@@ -136,6 +152,18 @@ public class StepPrototype {
 		return new StepPrototype(StepType.MentalAct, actionClass, methodName);
 	}
 
+	/**
+	 * Instantiates a mental act that performs a function of the behavior variables. No method 
+	 * is looked up or invoked by reflection. 
+	 * 
+	 * @param mentalAct - the function to perform 
+	 */
+	public static StepPrototype createMentalAct(MentalAct mentalAct) {
+		StepPrototype step = new StepPrototype(StepType.MentalAct);
+		step.mentalAct = mentalAct;
+		return step;
+	}
+
 	/**
 	 * Instantiates a wait step. 
 	 * 
@@ -171,6 +199,11 @@ public class StepPrototype {
 		return this;
 	} 
 
+	public StepPrototype setTimeout(long timeout) {
+		this.timeout = timeout;
+		return this;
+	} 
+
 	public StepPrototype setPriority(int priority) {
 		this.priority = priority;
 		prioritySpecified = true;
@@ -206,6 +239,35 @@ public class StepPrototype {
 		return modifier; 
 	}
 
+	public long getTimeout() {
+		return timeout; 
+	}
+
+	/**
+	 * Resolves the variables in the step parameters against the layout of the enclosing behavior, 
+	 * assigns the action ID of action steps, and resolves the method of mental acts. 
+	 */
+	void compile(VariableLayout layout) {
+		if (stepType == StepType.Action) {
+			actionId = ActionRegistry.getId(stepName);
+		}
+		else if (stepType == StepType.MentalAct && invoker != null) {
+			invoker.prepare(parameters != null ? parameters.length : 0);
+		}
+		
+		if (parameters != null) {
+			for (Object parameter : parameters) {
+				if (parameter instanceof Variable) {
+					((Variable)parameter).resolve(layout);
+				}
+			}
+		}
+		
+		if (resultBinding != null) {
+			layout.addVariable(resultBinding);
+		}
+	}
+
 	/**
 	 * Creates an ABT node based this prototype step. If a modifier is specified, this 
 	 * method will return a modifier step. 
@@ -230,7 +292,7 @@ public class StepPrototype {
 		
 		switch (stepType) {
 		case Action:
-			node = new ActionNode(stepName, parameters);
+			node = new ActionNode(stepName, parameters, resultBinding, actionId);
 			break;
 		case Subgoal:
 			node = new GoalNode(stepName, parameters);
@@ -239,7 +301,7 @@ public class StepPrototype {
 			node = new SpawnGoalNode(stepName, parameters);
 			break;
 		case WaitStep:
-			node = new WaitStepNode(waitConditions);
+			node = new WaitStepNode(waitConditions, timeout);
 			break; 
 		case SucceedStep:
 			node = new SucceedStepNode();
@@ -248,7 +310,8 @@ public class StepPrototype {
 			node= new FailStepNode();
 			break; 
 		case MentalAct:
-			node = new MentalActNode(actionClass, stepName, parameters, resultBinding);
+			node = (mentalAct != null) ? new MentalActNode(mentalAct, resultBinding) : 
+				new MentalActNode(invoker, actionClass, stepName, parameters, resultBinding);
 			break;
 		}			  
 
@@ -0,0 +1,315 @@
+package microabl.prototype;
+
+import microabl.prototype.ConditionPrototype.Comparison;
+import microabl.wm.AttributeAccessor;
+import microabl.wm.WME;
+/**
+ * A compiled condition test (e.g. X > 10). 
+ * 
+ * Test predicates are specialized by comparison type and by whether the tested value is 
+ * a literal or a behavior variable. Literals are converted once when the predicate is 
+ * created, variables are read from a slot resolved when the predicate is created, and 
+ * numeric comparisons are performed on int and double values. 
+ * 
+ * Comparison semantics match the comparison types documented in ConditionPrototype. 
+ */
+abstract class TestPredicate {
+
+	/** accessor for the tested WME attribute */ 
+	protected final AttributeAccessor accessor;
+
+	TestPredicate(AttributeAccessor accessor) {
+		this.accessor = accessor;
+	}
+
+	/**
+	 * Returns true if the WME passes the test. 
+	 * 
+	 * @param wme - the wme instance to test 
+	 * @param variables - list of behavior variables. 
+	 */
+	abstract boolean test(WME wme, VariableFrame variables);
+
+	/**
+	 * Creates a predicate for the given comparison. 
+	 * 
+	 * @param accessor - accessor for the tested attribute 
+	 * @param comparison - the comparison type 
+	 * @param value - a literal or a Variable 
+	 * @param layout - the layout used to resolve variable slots 
+	 */
+	static TestPredicate create(AttributeAccessor accessor, Comparison comparison, Object value, VariableLayout layout) {
+		if (value instanceof Variable) {
+			int variable = layout.addVariable(((Variable)value).getName());
+			
+			switch (comparison) {
+			case Equals:
+				return new VariableEquals(accessor, variable, true);
+			case NEquals:
+				return new VariableEquals(accessor, variable, false);
+			case eq:
+				return new VariableIntEquals(accessor, variable, true);
+			case neq:
+				return new VariableIntEquals(accessor, variable, false);
+			default:
+				return new VariableRelational(accessor, variable, NumericComparison.forComparison(comparison));
+			}
+		}
+		
+		switch (comparison) {
+		case Equals:
+			return new LiteralEquals(accessor, value, true);
+		case NEquals:
+			return new LiteralEquals(accessor, value, false);
+		case eq:
+			return (value instanceof Integer) ? new LiteralIntEquals(accessor, (Integer)value, true) : new Never(accessor);
+		case neq:
+			return (value instanceof Integer) ? new LiteralIntEquals(accessor, (Integer)value, false) : new Never(accessor);
+		default:
+			if (value instanceof Integer) {
+				return new LiteralIntRelational(accessor, (Integer)value, NumericComparison.forComparison(comparison));
+			}
+			else if (value instanceof Double) {
+				return new LiteralDoubleRelational(accessor, (Double)value, NumericComparison.forComparison(comparison));
+			}
+			else {
+				return new Never(accessor);
+			}
+		}
+	}
+
+	/**
+	 * Tests an attribute for equality (Equals) or inequality (NEquals) with a literal. 
+	 */
+	static final class LiteralEquals extends TestPredicate {
+		private final Object value;
+		private final boolean equals;
+
+		LiteralEquals(AttributeAccessor accessor, Object value, boolean equals) {
+			super(accessor);
+			this.value = value;
+			this.equals = equals;
+		}
+
+		boolean test(WME wme, VariableFrame variables) {
+			return equal(accessor.get(wme), value) == equals;
+		}
+	}
+
+	/**
+	 * Tests an attribute for equality (Equals) or inequality (NEquals) with a variable. 
+	 */
+	static final class VariableEquals extends TestPredicate {
+		private final int variable;
+		private final boolean equals;
+
+		VariableEquals(AttributeAccessor accessor, int variable, boolean equals) {
+			super(accessor);
+			this.variable = variable;
+			this.equals = equals;
+		}
+
+		boolean test(WME wme, VariableFrame variables) {
+			return equal(accessor.get(wme), variables.get(variable)) == equals;
+		}
+	}
+
+	/**
+	 * Tests an int attribute for equality (eq) or inequality (neq) with an int literal. 
+	 */
+	static final class LiteralIntEquals extends TestPredicate {
+		private final int value;
+		private final boolean equals;
+
+		LiteralIntEquals(AttributeAccessor accessor, int value, boolean equals) {
+			super(accessor);
+			this.value = value;
+			this.equals = equals;
+		}
+
+		boolean test(WME wme, VariableFrame variables) {
+			Object wmeValue = accessor.get(wme);
+			return (wmeValue instanceof Integer) && ((((Integer)wmeValue).intValue() == value) == equals);
+		}
+	}
+
+	/**
+	 * Tests an int attribute for equality (eq) or inequality (neq) with an int variable. 
+	 */
+	static final class VariableIntEquals extends TestPredicate {
+		private final int variable;
+		private final boolean equals;
+
+		VariableIntEquals(AttributeAccessor accessor, int variable, boolean equals) {
+			super(accessor);
+			this.variable = variable;
+			this.equals = equals;
+		}
+
+		boolean test(WME wme, VariableFrame variables) {
+			Object wmeValue = accessor.get(wme);
+			Object conditionValue = variables.get(variable);
+			
+			if (wmeValue instanceof Integer && conditionValue instanceof Integer) {
+				return (((Integer)wmeValue).intValue() == ((Integer)conditionValue).intValue()) == equals; 
+			}
+			
+			return false;
+		}
+	}
+
+	/**
+	 * Compares a numeric attribute to an int literal. 
+	 */
+	static final class LiteralIntRelational extends TestPredicate {
+		private final int value;
+		private final NumericComparison comparison;
+
+		LiteralIntRelational(AttributeAccessor accessor, int value, NumericComparison comparison) {
+			super(accessor);
+			this.value = value;
+			this.comparison = comparison;
+		}
+
+		boolean test(WME wme, VariableFrame variables) {
+			Object wmeValue = accessor.get(wme);
+
+			if (wmeValue instanceof Integer) {
+				return comparison.compare(((Integer)wmeValue).intValue(), value);
+			}
+			else if (wmeValue instanceof Double) {
+				return comparison.compare(((Double)wmeValue).doubleValue(), value);
+			}
+
+			return false;
+		}
+	}
+
+	/**
+	 * Compares a numeric attribute to a double literal. 
+	 */
+	static final class LiteralDoubleRelational extends TestPredicate {
+		private final double value;
+		private final NumericComparison comparison;
+
+		LiteralDoubleRelational(AttributeAccessor accessor, double value, NumericComparison comparison) {
+			super(accessor);
+			this.value = value;
+			this.comparison = comparison;
+		}
+
+		boolean test(WME wme, VariableFrame variables) {
+			Object wmeValue = accessor.get(wme);
+
+			if (wmeValue instanceof Integer) {
+				return comparison.compare(((Integer)wmeValue).intValue(), value);
+			}
+			else if (wmeValue instanceof Double) {
+				return comparison.compare(((Double)wmeValue).doubleValue(), value);
+			}
+
+			return false;
+		}
+	}
+
+	/**
+	 * Compares a numeric attribute to a numeric variable. 
+	 */
+	static final class VariableRelational extends TestPredicate {
+		private final int variable;
+		private final NumericComparison comparison;
+
+		VariableRelational(AttributeAccessor accessor, int variable, NumericComparison comparison) {
+			super(accessor);
+			this.variable = variable;
+			this.comparison = comparison;
+		}
+
+		boolean test(WME wme, VariableFrame variables) {
+			Object wmeValue = accessor.get(wme);
+			Object conditionValue = variables.get(variable);
+
+			if (wmeValue instanceof Integer && conditionValue instanceof Integer) {
+				return comparison.compare(((Integer)wmeValue).intValue(), ((Integer)conditionValue).intValue());
+			}
+			else if (isNumber(wmeValue) && isNumber(conditionValue)) {
+				return comparison.compare(((Number)wmeValue).doubleValue(), ((Number)conditionValue).doubleValue());
+			}
+
+			return false;
+		}
+	}
+
+	/**
+	 * A test that never passes (e.g. an int comparison with a non-int literal). 
+	 */
+	static final class Never extends TestPredicate {
+		Never(AttributeAccessor accessor) {
+			super(accessor);
+		}
+
+		boolean test(WME wme, VariableFrame variables) {
+			return false;
+		}
+	}
+
+	/**
+	 * Numeric comparisons (gt, gte, lt, lte). 
+	 */
+	static abstract class NumericComparison {
+		abstract boolean compare(int wmeValue, int conditionValue);
+		abstract boolean compare(double wmeValue, double conditionValue);
+
+		static final NumericComparison LessThan = new NumericComparison() {
+			boolean compare(int wmeValue, int conditionValue) { return wmeValue < conditionValue; }
+			boolean compare(double wmeValue, double conditionValue) { return wmeValue < conditionValue; }
+		};
+
+		static final NumericComparison LessThanOrEqual = new NumericComparison() {
+			boolean compare(int wmeValue, int conditionValue) { return wmeValue <= conditionValue; }
+			boolean compare(double wmeValue, double conditionValue) { return wmeValue <= conditionValue; }
+		};
+
+		static final NumericComparison GreaterThan = new NumericComparison() {
+			boolean compare(int wmeValue, int conditionValue) { return wmeValue > conditionValue; }
+			boolean compare(double wmeValue, double conditionValue) { return wmeValue > conditionValue; }
+		};
+
+		static final NumericComparison GreaterThanOrEqual = new NumericComparison() {
+			boolean compare(int wmeValue, int conditionValue) { return wmeValue >= conditionValue; }
+			boolean compare(double wmeValue, double conditionValue) { return wmeValue >= conditionValue; }
+		};
+
+		static NumericComparison forComparison(Comparison comparison) {
+			switch (comparison) {
+			case lt:
+				return LessThan;
+			case lte:
+				return LessThanOrEqual;
+			case gt:
+				return GreaterThan;
+			default:
+				return GreaterThanOrEqual;
+			}
+		}
+	}
+
+	/**
+	 * Equals semantics: null matches null, otherwise invokes equals on the WME value. 
+	 */
+	static boolean equal(Object wmeValue, Object conditionValue) {
+		if (wmeValue == null) {
+			return (conditionValue == null);
+		}
+		else {
+			return wmeValue.equals(conditionValue);
+		}
+	}
+
+	/**
+	 * Only int and double values are supported by numeric comparisons. 
+	 */
+	static boolean isNumber(Object value) {
+		return (value instanceof Integer) || (value instanceof Double);
+	}
+}
@@ -1,12 +1,23 @@
 package microabl.prototype;
 /**
  * Represents a behavior-scoped variable. 
+ * 
+ * When a behavior library is compiled, variables are resolved to a slot in the variable layout
+ * of the behavior that references them, so that values can be retrieved without a name lookup. 
+ * The slot is assigned before the layout is published, so a reader that sees the layout also 
+ * sees its slot. 
  */
 public class Variable { 
 
 	/** variable name */ 
 	private String name;
 
+	/** the layout the slot was resolved against (null if not yet resolved) */ 
+	volatile VariableLayout layout; 
+
+	/** the variable's slot in the resolved layout */ 
+	int slot = -1; 
+
 	/**
 	 * Creates a variable with the given name. 
 	 */
@@ -17,6 +28,17 @@ public class Variable {
 	public String getName() {
 		return name; 
 	}
+
+	/**
+	 * Resolves the variable to a slot in the layout. Variables shared by behaviors keep the first 
+	 * layout they are resolved against, and are looked up by name in other layouts. 
+	 */
+	synchronized void resolve(VariableLayout layout) {
+		if (this.layout == null) {
+			this.slot = layout.addVariable(name);
+			this.layout = layout;
+		}
+	}
 	 
 	public String toString() {
 		return "Variable(" + name + ")";
@@ -0,0 +1,117 @@
+package microabl.prototype;
+
+import java.util.Arrays;
+/**
+ * Holds the values of behavior-scoped variables, indexed by the slots of a VariableLayout. 
+ * 
+ * Unbound variables have no value and are read as null. Frames grow as needed if variables are
+ * added to the layout after the frame was created. 
+ */
+public class VariableFrame {
+
+	/** marks slots for unbound variables */ 
+	private static final Object Unbound = new Object();
+
+	/** the layout of the frame */ 
+	private VariableLayout layout; 
+
+	/** variable values by slot */ 
+	private Object[] values; 
+
+	/**
+	 * Creates a frame with all variables unbound. 
+	 */
+	public VariableFrame(VariableLayout layout) {
+		this.layout = layout;
+		this.values = new Object[layout.size()];
+		Arrays.fill(values, Unbound);
+	}
+
+	/**
+	 * Creates a copy of a frame. 
+	 */
+	public VariableFrame(VariableFrame frame) {
+		this.layout = frame.layout;
+		this.values = frame.values.clone();
+	}
+
+	public VariableLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Returns the value in a slot, or null if the variable is unbound. 
+	 */
+	public Object get(int slot) {
+		Object value = (slot >= 0 && slot < values.length) ? values[slot] : Unbound;
+		return (value != Unbound) ? value : null;
+	}
+
+	/**
+	 * Sets the value in a slot. 
+	 */
+	public void set(int slot, Object value) {
+		if (slot >= values.length) {
+			int length = values.length;
+			values = Arrays.copyOf(values, Math.max(slot + 1, layout.size()));
+			Arrays.fill(values, length, values.length, Unbound);
+		}
+		
+		values[slot] = value;
+	}
+
+	/**
+	 * Returns true if the variable in a slot is bound. 
+	 */
+	public boolean isBound(int slot) {
+		return slot >= 0 && slot < values.length && values[slot] != Unbound;
+	}
+
+	/**
+	 * Returns the value of a variable, or null if the variable is unbound. 
+	 */
+	public Object get(Variable variable) {
+		return get((variable.layout == layout) ? variable.slot : layout.getSlot(variable.getName()));
+	}
+
+	/**
+	 * Returns the value of a variable by name, or null if the variable is unbound. 
+	 */
+	public Object get(String name) {
+		int slot = layout.getSlot(name);
+		return (slot >= 0) ? get(slot) : null;
+	}
+
+	/**
+	 * Returns true if the variable is bound. 
+	 */
+	public boolean isBound(Variable variable) {
+		return isBound((variable.layout == layout) ? variable.slot : layout.getSlot(variable.getName()));
+	}
+
+	/**
+	 * Returns true if the variable is bound. 
+	 */
+	public boolean isBound(String name) {
+		return isBound(layout.getSlot(name));
+	}
+
+	/**
+	 * Sets the value of a variable by name. 
+	 */
+	public void set(String name, Object value) {
+		set(layout.addVariable(name), value);
+	}
+
+	public String toString() {
+		StringBuffer result = new StringBuffer("{");
+		
+		for (int slot=0; slot<values.length; slot++) {
+			if (values[slot] != Unbound) {
+				result.append((result.length() > 1 ? ", " : "") + layout.getName(slot) + "=" + values[slot]);
+			}
+		}
+		
+		return result.append("}").toString();
+	}
+}
@@ -0,0 +1,85 @@
+package microabl.prototype;
+
+import java.util.Arrays;
+import java.util.HashMap;
+/**
+ * Assigns the variables of a behavior to slots in a VariableFrame. 
+ * 
+ * A layout is created when a behavior prototype is compiled and contains the behavior parameters,
+ * followed by the variables referenced by conditions and steps. Variables first assigned at 
+ * runtime (e.g. by BehaviorNode.setVariable) are appended to the layout. 
+ * 
+ * Layouts are shared by the agents using a behavior library. The slots are held in an immutable
+ * state that is replaced when a variable is appended, so looking up a slot does not lock. 
+ */
+public class VariableLayout {
+
+	/** the current slots, replaced when a variable is added */ 
+	private volatile State state = new State(new HashMap<String, Integer>(), new String[0]);
+
+	/**
+	 * Returns the slot for a variable, adding the variable to the layout if needed. 
+	 */
+	public int addVariable(String name) {
+		Integer slot = state.slots.get(name);
+		if (slot != null) {
+			return slot;
+		}
+		
+		synchronized (this) {
+			State current = state;
+			slot = current.slots.get(name);
+			
+			if (slot == null) {
+				slot = current.names.length;
+				
+				HashMap<String, Integer> slots = new HashMap<String, Integer>(current.slots);
+				slots.put(name, slot);
+				String[] names = Arrays.copyOf(current.names, slot + 1);
+				names[slot] = name;
+				state = new State(slots, names);
+			}
+			
+			return slot;
+		}
+	}
+
+	/**
+	 * Returns the slot for a variable, or -1 if the variable is not in the layout. 
+	 */
+	public int getSlot(String name) {
+		Integer slot = state.slots.get(name);
+		return (slot != null) ? slot : -1;
+	}
+
+	/**
+	 * Returns the name of the variable in a slot. 
+	 */
+	public String getName(int slot) {
+		return state.names[slot];
+	}
+
+	/**
+	 * Returns the number of slots in the layout. 
+	 */
+	public int size() {
+		return state.names.length;
+	}
+
+	/**
+	 * The slots of a layout. Not modified after it is created. 
+	 */
+	private static class State {
+
+		/** slots by variable name */ 
+		private final HashMap<String, Integer> slots;
+
+		/** variable names by slot */ 
+		private final String[] names;
+
+		private State(HashMap<String, Integer> slots, String[] names) {
+			this.slots = slots;
+			this.names = names;
+		}
+	}
+}
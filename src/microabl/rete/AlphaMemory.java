@@ -0,0 +1,97 @@
+package microabl.rete;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import microabl.prototype.ConditionPrototype;
+import microabl.wm.WME;
+import microabl.wm.WorkingMemory;
+/**
+ * Maintains the WMEs in working memory that pass the literal tests of a condition. 
+ * 
+ * Alpha memories are shared by all beta nodes that test the same condition prototype. Changes
+ * to the memory are propagated to the beta nodes. 
+ */
+class AlphaMemory {
+
+	/** the condition tested by the memory */ 
+	private ConditionPrototype condition;
+
+	/** WMEs that pass the literal tests of the condition */ 
+	private LinkedHashSet<WME> wmes = new LinkedHashSet<WME>();
+
+	/** beta nodes that join against the memory */ 
+	private ArrayList<BetaNode> successors = new ArrayList<BetaNode>();
+
+	/**
+	 * Creates an alpha memory for the condition, populated from working memory. 
+	 */
+	AlphaMemory(ConditionPrototype condition, WorkingMemory workingMemory) {
+		this.condition = condition;
+		
+		Set<WME> existing = workingMemory.getWMEs(condition.getWMEClass());
+		for (WME wme : existing) {
+			if (condition.testLiterals(wme)) {
+				wmes.add(wme);
+			}
+		}
+	}
+
+	ConditionPrototype getCondition() {
+		return condition;
+	}
+
+	LinkedHashSet<WME> getWMEs() {
+		return wmes;
+	}
+
+	/**
+	 * Adds a beta node that joins against the memory. Nodes are activated in the reverse of the order 
+	 * they were added, so that when a network tests the condition more than once, later conditions
+	 * are joined before earlier conditions propagate new tokens to them. Otherwise, a new WME could
+	 * be joined twice with the same token. 
+	 */
+	void addSuccessor(BetaNode node) {
+		successors.add(0, node);
+	}
+
+	void removeSuccessor(BetaNode node) {
+		successors.remove(node);
+	}
+
+	boolean hasSuccessors() {
+		return !successors.isEmpty();
+	}
+
+	/**
+	 * Adds the WME if it passes the literal tests. 
+	 */
+	void add(WME wme) {
+		if (condition.testLiterals(wme) && wmes.add(wme)) {
+			for (BetaNode node : successors) {
+				node.rightActivate(wme);
+			}
+		}
+	}
+
+	/**
+	 * Removes the WME if it is in the memory. 
+	 */
+	void remove(WME wme) {
+		if (wmes.remove(wme)) {
+			for (BetaNode node : successors) {
+				node.rightDeactivate(wme);
+			}
+		}
+	}
+
+	/**
+	 * Re-tests a WME with modified attributes. WMEs that remain in the memory are re-joined, since
+	 * attributes tested against variables or bound to variables may have changed. 
+	 */
+	void update(WME wme) {
+		remove(wme);
+		add(wme);
+	}
+}
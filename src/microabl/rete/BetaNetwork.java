@@ -0,0 +1,178 @@
+package microabl.rete;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
+import microabl.prototype.ConditionPrototype;
+import microabl.prototype.VariableFrame;
+import microabl.prototype.VariableLayout;
+/**
+ * Maintains the matches for a list of conditions, evaluated with the variables of a behavior. 
+ * 
+ * The network has a beta node for each condition. The root token holds a copy of the behavior 
+ * variables, and the tokens that reach the end of the network are complete matches. Matches
+ * are updated as WMEs are added, removed, and updated in working memory, rather than when the
+ * conditions are checked. 
+ * 
+ * If a behavior variable tested by the conditions changes (e.g. it is set by a mental act), the
+ * network is rebuilt from the new variable values the next time it is checked. 
+ */
+public class BetaNetwork {
+
+	/** the matcher that owns the alpha memories */ 
+	private ReteMatcher matcher; 
+
+	/** beta nodes, one for each condition */ 
+	private BetaNode[] nodes;
+
+	/** the root token (null if the network is disposed) */ 
+	private Token root; 
+
+	/** tokens that matched all of the conditions */ 
+	private LinkedHashSet<Token> matches = new LinkedHashSet<Token>();
+
+	/** slots of behavior variables tested by the conditions before they are bound by a condition */ 
+	private int[] inputSlots;
+
+	/** slots of behavior variables bound by the conditions */ 
+	private int[] boundSlots;
+
+	BetaNetwork(ReteMatcher matcher, ArrayList<ConditionPrototype> conditions, VariableFrame variables) {
+		this.matcher = matcher;
+		
+		ArrayList<String> inputVariables = new ArrayList<String>();
+		ArrayList<String> boundVariables = new ArrayList<String>();
+		
+		nodes = new BetaNode[conditions.size()];
+		for (int index=0; index<nodes.length; index++) {
+			ConditionPrototype condition = conditions.get(index);
+			nodes[index] = new BetaNode(this, matcher.acquire(condition));
+			nodes[index].getAlphaMemory().addSuccessor(nodes[index]);
+
+			for (String name : condition.getTestVariables()) {
+				if (!boundVariables.contains(name) && !inputVariables.contains(name)) {
+					inputVariables.add(name);
+				}
+			}
+
+			if (condition.isWMECheck()) {
+				for (String name : condition.getBindings().values()) {
+					if (!boundVariables.contains(name)) {
+						boundVariables.add(name);
+					}
+				}
+				
+				if (condition.getWMEVariable() != null && !boundVariables.contains(condition.getWMEVariable())) {
+					boundVariables.add(condition.getWMEVariable());
+				}
+			}
+		}
+		
+		inputSlots = getSlots(inputVariables, variables.getLayout());
+		boundSlots = getSlots(boundVariables, variables.getLayout());
+		build(variables);
+	}
+
+	/**
+	 * Resolves variable names to slots in the layout. 
+	 */
+	private static int[] getSlots(ArrayList<String> names, VariableLayout layout) {
+		int[] slots = new int[names.size()];
+		
+		for (int index=0; index<slots.length; index++) {
+			slots[index] = layout.addVariable(names.get(index));
+		}
+		
+		return slots;
+	}
+
+	/**
+	 * Returns true if the conditions are satisfied. If so, the variables bound by a match are 
+	 * assigned to the behavior variables. 
+	 * 
+	 * @param variables - variables defined in the behavior 
+	 */
+	public boolean matches(VariableFrame variables) {
+		for (int slot : inputSlots) {
+			Object value = variables.get(slot);
+			Object input = root.variables.get(slot);
+			
+			if (value == null ? input != null : !value.equals(input)) {
+				removeToken(root);
+				build(variables);
+				break;
+			}
+		}
+		
+		if (matches.isEmpty()) {
+			return false;
+		}
+		
+		Token match = matches.iterator().next();
+		for (int slot : boundSlots) {
+			variables.set(slot, match.variables.get(slot));
+		}
+		
+		return true;
+	}
+
+	/**
+	 * Removes the network from the alpha memories. The network cannot be used afterwards. 
+	 */
+	public void dispose() {
+		for (BetaNode node : nodes) {
+			node.getAlphaMemory().removeSuccessor(node);
+			matcher.release(node.getAlphaMemory());
+		}
+		
+		root = null; 
+		matches.clear();
+	}
+
+	/**
+	 * Creates the root token and matches it against the conditions. 
+	 */
+	private void build(VariableFrame variables) {
+		root = new Token(null, null, 0, new VariableFrame(variables));
+		propagate(root);
+	}
+
+	/**
+	 * Passes a token to the node for the next condition, or records a complete match. 
+	 */
+	void propagate(Token token) {
+		if (token.level < nodes.length) {
+			nodes[token.level].leftActivate(token);
+		}
+		else {
+			matches.add(token);
+		}
+	}
+
+	/**
+	 * Removes a token and the tokens that extend it. 
+	 */
+	void removeToken(Token token) {
+		removeChildren(token);
+
+		if (token.parent != null) {
+			token.parent.children.remove(token);
+		}
+		
+		if (token.level < nodes.length) {
+			nodes[token.level].getTokens().remove(token);
+		}
+		else {
+			matches.remove(token);
+		}
+	}
+
+	/**
+	 * Removes the tokens that extend a token. 
+	 */
+	void removeChildren(Token token) {
+		while (!token.children.isEmpty()) {
+			removeToken(token.children.get(token.children.size() - 1));
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package microabl.rete;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
+import microabl.prototype.ConditionPrototype;
+import microabl.prototype.VariableFrame;
+import microabl.wm.WME;
+/**
+ * Joins the tokens that matched the preceding conditions of a network with the WMEs in the 
+ * alpha memory of a condition. 
+ * 
+ * For WME conditions, a token is extended by each WME that passes the variable tests, and the 
+ * extended token binds the WME attributes and WME variable. For negation conditions, a token
+ * is passed on only while no WME passes the variable tests. 
+ */
+class BetaNode {
+
+	/** the network the node belongs to */ 
+	private BetaNetwork network; 
+
+	/** the condition tested by the node */ 
+	private ConditionPrototype condition;
+
+	/** WMEs that pass the literal tests of the condition */ 
+	private AlphaMemory alphaMemory;
+
+	/** tokens that matched the preceding conditions */ 
+	private LinkedHashSet<Token> tokens = new LinkedHashSet<Token>();
+
+	BetaNode(BetaNetwork network, AlphaMemory alphaMemory) {
+		this.network = network;
+		this.alphaMemory = alphaMemory;
+		this.condition = alphaMemory.getCondition();
+	}
+
+	AlphaMemory getAlphaMemory() {
+		return alphaMemory;
+	}
+
+	LinkedHashSet<Token> getTokens() {
+		return tokens;
+	}
+
+	/**
+	 * Joins a new token with the alpha memory. 
+	 */
+	void leftActivate(Token token) {
+		tokens.add(token);
+		
+		for (WME wme : alphaMemory.getWMEs()) {
+			if (condition.testVariables(wme, token.variables)) {
+				if (condition.isNegationCheck()) {
+					token.blockers.add(wme);
+				}
+				else {
+					network.propagate(extend(token, wme));
+				}
+			}
+		}
+
+		if (condition.isNegationCheck() && token.blockers.isEmpty()) {
+			network.propagate(pass(token));
+		}
+	}
+
+	/**
+	 * Joins a WME added to the alpha memory with the tokens. 
+	 */
+	void rightActivate(WME wme) {
+		for (Token token : new ArrayList<Token>(tokens)) {
+			if (condition.testVariables(wme, token.variables)) {
+				if (condition.isNegationCheck()) {
+					token.blockers.add(wme);
+
+					// the first matching WME blocks the token 
+					if (token.blockers.size() == 1) {
+						network.removeChildren(token);
+					}
+				}
+				else {
+					network.propagate(extend(token, wme));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the matches for a WME removed from the alpha memory. 
+	 */
+	void rightDeactivate(WME wme) {
+		for (Token token : new ArrayList<Token>(tokens)) {
+			if (condition.isNegationCheck()) {
+				
+				// the last matching WME unblocks the token 
+				if (token.blockers.remove(wme) && token.blockers.isEmpty()) {
+					network.propagate(pass(token));
+				}
+			}
+			else {
+				for (Token child : new ArrayList<Token>(token.children)) {
+					if (child.wme == wme) {
+						network.removeToken(child);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a token that extends the token with a WME matching the condition. 
+	 */
+	private Token extend(Token token, WME wme) {
+		VariableFrame variables = new VariableFrame(token.variables);
+		condition.bindWME(wme, variables);
+		
+		Token child = new Token(token, wme, token.level + 1, variables);
+		token.children.add(child);
+		return child;
+	}
+
+	/**
+	 * Creates a token that passes the token through an unmatched negation. 
+	 */
+	private Token pass(Token token) {
+		Token child = new Token(token, null, token.level + 1, token.variables);
+		token.children.add(child);
+		return child;
+	}
+}
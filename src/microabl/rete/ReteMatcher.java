@@ -0,0 +1,137 @@
+package microabl.rete;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import microabl.prototype.ConditionPrototype;
+import microabl.prototype.VariableFrame;
+import microabl.wm.WME;
+import microabl.wm.WorkingMemory;
+import microabl.wm.WorkingMemoryListener;
+/**
+ * An incremental matcher for condition lists, based on the Rete algorithm. 
+ * 
+ * The matcher maintains an alpha memory for each condition prototype in use, which holds the 
+ * WMEs that pass the literal tests of the condition. Beta networks join the alpha memories 
+ * for a list of conditions, using the variables of a behavior instance. The matcher listens
+ * to working memory, and changes are propagated through the alpha memories to the networks. 
+ * 
+ * WME and negation conditions are supported. Mental conditions invoke Java methods, which 
+ * cannot be matched incrementally, and lists that contain them must be checked directly. 
+ * 
+ * Modifications to the attributes of WMEs in working memory must be reported by invoking 
+ * WorkingMemory.updateWME or WME.changed, otherwise the matches will not reflect the changes. 
+ */
+public class ReteMatcher implements WorkingMemoryListener {
+
+	/** the working memory to match against */ 
+	private WorkingMemory workingMemory; 
+
+	/** alpha memories by condition prototype */ 
+	private HashMap<ConditionPrototype, AlphaMemory> alphaMemories = new HashMap<ConditionPrototype, AlphaMemory>();
+
+	/** alpha memories by the WME class of the condition */ 
+	private HashMap<Class, ArrayList<AlphaMemory>> classMemories = new HashMap<Class, ArrayList<AlphaMemory>>();
+
+	/**
+	 * Creates a matcher and registers it with working memory. 
+	 */
+	public ReteMatcher(WorkingMemory workingMemory) {
+		this.workingMemory = workingMemory;
+		workingMemory.addListener(this);
+	}
+
+	/**
+	 * Creates a network that maintains the matches for a list of conditions. Returns null if the
+	 * list is empty or contains a mental condition. 
+	 * 
+	 * @param conditions - the conditions to match
+	 * @param variables - variables defined in the behavior 
+	 */
+	public BetaNetwork createNetwork(ArrayList<ConditionPrototype> conditions, VariableFrame variables) {
+		if (conditions.isEmpty()) {
+			return null;
+		}
+		
+		for (ConditionPrototype condition : conditions) {
+			if (!condition.isWMECheck() && !condition.isNegationCheck()) {
+				return null;
+			}
+		}
+		
+		return new BetaNetwork(this, conditions, variables);
+	}
+
+	/**
+	 * Unregisters the matcher from working memory. 
+	 */
+	public void dispose() {
+		workingMemory.removeListener(this);
+	}
+
+	/**
+	 * Returns the alpha memory for a condition, creating it if needed. 
+	 */
+	AlphaMemory acquire(ConditionPrototype condition) {
+		AlphaMemory memory = alphaMemories.get(condition);
+		
+		if (memory == null) {
+			memory = new AlphaMemory(condition, workingMemory);
+			alphaMemories.put(condition, memory);
+
+			if (!classMemories.containsKey(condition.getWMEClass())) {
+				classMemories.put(condition.getWMEClass(), new ArrayList<AlphaMemory>());
+			}
+			
+			classMemories.get(condition.getWMEClass()).add(memory);
+		}
+		
+		return memory;
+	}
+
+	/**
+	 * Discards an alpha memory once no networks use it. 
+	 */
+	void release(AlphaMemory memory) {
+		if (!memory.hasSuccessors() && alphaMemories.remove(memory.getCondition()) != null) {
+			classMemories.get(memory.getCondition().getWMEClass()).remove(memory);
+		}
+	}
+
+	public void wmeAdded(WME wme) {
+		for (AlphaMemory memory : getMemories(wme)) {
+			memory.add(wme);
+		}
+	}
+
+	public void wmeRemoved(WME wme) {
+		for (AlphaMemory memory : getMemories(wme)) {
+			memory.remove(wme);
+		}
+	}
+
+	public void wmeUpdated(WME wme) {
+		for (AlphaMemory memory : getMemories(wme)) {
+			memory.update(wme);
+		}
+	}
+
+	/**
+	 * Returns the alpha memories for conditions on the WME's class and super classes. 
+	 */
+	private ArrayList<AlphaMemory> getMemories(WME wme) {
+		ArrayList<AlphaMemory> memories = new ArrayList<AlphaMemory>();
+		Class wmeClass = wme.getClass();
+		
+		while (!wmeClass.equals(WME.class)) {
+			ArrayList<AlphaMemory> matching = classMemories.get(wmeClass);
+			if (matching != null) {
+				memories.addAll(matching);
+			}
+			
+			wmeClass = wmeClass.getSuperclass();
+		}
+		
+		return memories;
+	}
+}
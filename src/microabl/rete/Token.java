@@ -0,0 +1,38 @@
+package microabl.rete;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import microabl.prototype.VariableFrame;
+import microabl.wm.WME;
+/**
+ * A partial match in a beta network. A token at level n has matched the first n conditions
+ * of the network, and holds the behavior variables with the bindings made by those conditions. 
+ */
+class Token {
+
+	/** the token this token extends (null for the root token) */ 
+	final Token parent; 
+
+	/** the WME matched by the last condition (null for the root token and negations) */ 
+	final WME wme; 
+
+	/** number of conditions matched */ 
+	final int level;
+
+	/** behavior variables, including bindings made by the matched conditions */ 
+	final VariableFrame variables; 
+
+	/** tokens that extend this token */ 
+	final ArrayList<Token> children = new ArrayList<Token>();
+
+	/** WMEs that match the negation condition at this token's level (for negations only) */ 
+	final HashSet<WME> blockers = new HashSet<WME>();
+
+	Token(Token parent, WME wme, int level, VariableFrame variables) {
+		this.parent = parent;
+		this.wme = wme;
+		this.level = level;
+		this.variables = variables;
+	}
+}
@@ -0,0 +1,38 @@
+package microabl.timer;
+/**
+ * A task scheduled on a TimerWheel. Timers are stored in intrusive lists, so scheduling and
+ * cancelling a timer does not allocate list nodes. 
+ */
+public class Timer {
+
+	/** the task to run when the timer expires */ 
+	final Runnable task; 
+
+	/** the wheel tick the timer expires on */ 
+	final long tick; 
+
+	/** the wheel the timer is scheduled on */ 
+	TimerWheel wheel; 
+
+	/** the wheel list containing the timer (-1 if the timer expired or was cancelled) */ 
+	int bucket = -1;
+
+	/** previous timer in the list */ 
+	Timer previous; 
+
+	/** next timer in the list */ 
+	Timer next; 
+
+	Timer(TimerWheel wheel, Runnable task, long tick) {
+		this.wheel = wheel;
+		this.task = task;
+		this.tick = tick;
+	}
+
+	/**
+	 * Returns true if the timer has not yet expired or been cancelled. 
+	 */
+	public boolean isPending() {
+		return bucket != -1;
+	}
+}
@@ -0,0 +1,274 @@
+package microabl.timer;
+
+import microabl.abt.ABTRuntimeError;
+/**
+ * A hierarchical timing wheel. Timers are hashed into the slots of 4 wheels of 64 slots, where
+ * each slot of a wheel spans a full revolution of the wheel below it. Timers in a slot of an 
+ * upper wheel are moved to the wheel below when the lower wheel completes a revolution. 
+ * 
+ * Scheduling and cancelling a timer take constant time, and advancing the wheel takes time
+ * proportional to the number of ticks elapsed and the number of timers that expire, regardless 
+ * of the number of pending timers. Deadlines beyond the range of the wheels (64^4 ticks) are 
+ * stored in the last slot of the top wheel until they come into range. 
+ * 
+ * Times are specified in milliseconds, and are rounded up to the resolution of the wheel. 
+ * Timers are run by advance, on the thread that advances the wheel. The wheel is not thread 
+ * safe. 
+ */
+public class TimerWheel {
+
+	/** number of bits for the slot index of a wheel */ 
+	private static final int SlotBits = 6;
+
+	/** number of slots in a wheel */ 
+	private static final int NumSlots = 1 << SlotBits; 
+
+	/** mask for the slot index of a wheel */ 
+	private static final int SlotMask = NumSlots - 1; 
+
+	/** number of wheels */ 
+	private static final int NumWheels = 4; 
+
+	/** number of ticks covered by all wheels */ 
+	private static final long Range = 1L << (SlotBits * NumWheels); 
+
+	/** list of timers that expired when they were scheduled */ 
+	private static final int ExpiredBucket = NumSlots * NumWheels; 
+
+	/** bucket of timers removed from a list to be run */ 
+	static final int Expiring = -2; 
+
+	/** milliseconds per tick */ 
+	private final long resolution; 
+
+	/** heads of the timer lists, for each wheel slot and the expired list */ 
+	private final Timer[] buckets = new Timer[NumSlots * NumWheels + 1];
+
+	/** the last tick processed */ 
+	private long currentTick; 
+
+	/** number of pending timers */ 
+	private int size = 0;
+
+	/**
+	 * Creates a wheel with a resolution of 1 millisecond. 
+	 * 
+	 * @param time - the current time 
+	 */
+	public TimerWheel(long time) {
+		this(time, 1);
+	}
+
+	/**
+	 * Creates a wheel. 
+	 * 
+	 * @param time - the current time 
+	 * @param resolution - milliseconds per tick 
+	 */
+	public TimerWheel(long time, long resolution) {
+		this.resolution = Math.max(1, resolution);
+		this.currentTick = time / this.resolution;
+	}
+
+	/**
+	 * Schedules a task to run when the wheel is advanced to the given time. Tasks scheduled for 
+	 * a time that has passed run the next time the wheel is advanced. 
+	 * 
+	 * @param time - the time to run the task 
+	 * @param task - the task to run 
+	 * @return a timer that can be cancelled 
+	 */
+	public Timer schedule(long time, Runnable task) {
+		Timer timer = new Timer(this, task, (time + resolution - 1) / resolution);
+		size++;
+
+		if (timer.tick <= currentTick) {
+			link(timer, ExpiredBucket);
+		}
+		else {
+			insert(timer);
+		}
+		
+		return timer;
+	}
+
+	/**
+	 * Cancels a timer. Timers scheduled on other wheels are not cancelled. 
+	 * 
+	 * @return true if the timer was pending on this wheel 
+	 */
+	public boolean cancel(Timer timer) {
+		if (timer.wheel != this) {
+			return false;
+		}
+		else if (timer.bucket == Expiring) {
+			timer.bucket = -1;
+		}
+		else if (timer.bucket >= 0) {
+			unlink(timer);
+		}
+		else {
+			return false;
+		}
+		
+		size--;
+		return true;
+	}
+
+	/**
+	 * Moves the pending timers of this wheel to another wheel with the same resolution. The timers
+	 * keep their deadlines, and can then only be cancelled with the other wheel. Timers that have
+	 * passed on the other wheel run the next time it is advanced. 
+	 */
+	public void moveTo(TimerWheel other) {
+		if (other.resolution != resolution) {
+			throw new ABTRuntimeError("Timer wheels have different resolutions");
+		}
+		
+		for (int bucket=0; bucket<buckets.length; bucket++) {
+			for (Timer timer = takeBucket(bucket); timer != null; ) {
+				Timer next = timer.next;
+				timer.next = null;
+				timer.wheel = other;
+				size--;
+				other.size++;
+				
+				if (timer.tick <= other.currentTick) {
+					other.link(timer, ExpiredBucket);
+				}
+				else {
+					other.insert(timer);
+				}
+				
+				timer = next;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of pending timers. 
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Advances the wheel to the given time, and runs the tasks of expired timers. Timers scheduled
+	 * by the tasks for times that have already passed run the next time the wheel is advanced. 
+	 */
+	public void advance(long time) {
+		run(takeBucket(ExpiredBucket));
+		
+		long tick = time / resolution;
+		while (currentTick < tick) {
+			currentTick++;
+
+			// move timers down from the upper wheels at the end of each revolution  
+			int slot = (int)(currentTick & SlotMask);
+			for (int wheel=1; wheel<NumWheels && slot == 0; wheel++) {
+				slot = (int)((currentTick >>> (SlotBits * wheel)) & SlotMask);
+				cascade(wheel * NumSlots + slot);
+			}
+			
+			run(takeBucket((int)(currentTick & SlotMask)));
+		}
+	}
+
+	/**
+	 * Runs the tasks of a list of expired timers. Timers cancelled by earlier tasks in the list
+	 * are skipped. 
+	 */
+	private void run(Timer timers) {
+		for (Timer timer = timers; timer != null; ) {
+			Timer next = timer.next;
+			timer.next = null;
+			
+			if (timer.bucket == Expiring) {
+				timer.bucket = -1;
+				size--;
+				timer.task.run();
+			}
+			
+			timer = next;
+		}
+	}
+
+	/**
+	 * Reinserts the timers in a slot of an upper wheel. 
+	 */
+	private void cascade(int bucket) {
+		for (Timer timer = takeBucket(bucket); timer != null; ) {
+			Timer next = timer.next;
+			timer.next = null;
+			insert(timer);
+			timer = next;
+		}
+	}
+
+	/**
+	 * Adds a timer to the slot of the wheel that covers its deadline. Timers that are due on the
+	 * current tick are added to the slot that is run after upper wheel slots are cascaded. 
+	 */
+	private void insert(Timer timer) {
+		long delta = Math.max(0, timer.tick - currentTick); 
+		
+		long tick = (delta < Range) ? timer.tick : currentTick + Range - 1; 
+		for (int wheel=0; wheel<NumWheels; wheel++) {
+			if (wheel == NumWheels - 1 || delta < (1L << (SlotBits * (wheel + 1)))) {
+				link(timer, wheel * NumSlots + (int)((tick >>> (SlotBits * wheel)) & SlotMask));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Adds a timer to the front of a list. 
+	 */
+	private void link(Timer timer, int bucket) {
+		Timer head = buckets[bucket];
+		timer.bucket = bucket;
+		timer.previous = null;
+		timer.next = head;
+		
+		if (head != null) {
+			head.previous = timer;
+		}
+		
+		buckets[bucket] = timer;
+	}
+
+	/**
+	 * Removes a timer from its list. 
+	 */
+	private void unlink(Timer timer) {
+		if (timer.previous != null) {
+			timer.previous.next = timer.next;
+		}
+		else {
+			buckets[timer.bucket] = timer.next;
+		}
+		
+		if (timer.next != null) {
+			timer.next.previous = timer.previous;
+		}
+		
+		timer.bucket = -1;
+		timer.previous = null;
+		timer.next = null;
+	}
+
+	/**
+	 * Removes all timers from a list, and returns them as a list linked by next. 
+	 */
+	private Timer takeBucket(int bucket) {
+		Timer head = buckets[bucket];
+		buckets[bucket] = null;
+		
+		for (Timer timer = head; timer != null; timer = timer.next) {
+			timer.bucket = Expiring;
+			timer.previous = null;
+		}
+		
+		return head;
+	}
+}
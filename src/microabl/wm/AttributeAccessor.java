@@ -0,0 +1,16 @@
+package microabl.wm;
+/**
+ * Reads an attribute of a WME. 
+ * 
+ * Accessors are resolved once for each WME class and attribute name. 
+ * 
+ * @see WME#getAccessor(Class, String)
+ */
+public interface AttributeAccessor {
+
+	/**
+	 * Returns the attribute value of the given WME. The WME must be an instance of the class
+	 * the accessor was resolved for. 
+	 */
+	public Object get(WME wme);
+}
@@ -0,0 +1,71 @@
+package microabl.wm;
+
+import java.util.HashMap;
+/**
+ * Base class for indexes of WMEs by attribute value. 
+ * 
+ * The index records the value each WME was indexed under, so that WMEs can be removed or
+ * re-indexed after the attribute value has changed. 
+ */
+abstract class AttributeIndex {
+
+	/** accessor for the indexed attribute */ 
+	private AttributeAccessor accessor;
+
+	/** values WMEs are currently indexed under */ 
+	private HashMap<WME, Object> indexedValues = new HashMap<WME, Object>();
+
+	AttributeIndex(AttributeAccessor accessor) {
+		this.accessor = accessor;
+	}
+
+	/**
+	 * Adds a WME to the index. 
+	 */
+	void add(WME wme) {
+		if (indexedValues.containsKey(wme)) {
+			return;
+		}
+		
+		Object value = accessor.get(wme);
+		indexedValues.put(wme, value);
+		insert(value, wme);
+	}
+
+	/**
+	 * Removes a WME from the index. 
+	 */
+	void remove(WME wme) {
+		if (indexedValues.containsKey(wme)) {
+			delete(indexedValues.remove(wme), wme);
+		}
+	}
+
+	/**
+	 * Re-indexes a WME if its attribute value has changed. 
+	 */
+	void update(WME wme) {
+		if (!indexedValues.containsKey(wme)) {
+			return;
+		}
+		
+		Object value = accessor.get(wme);
+		Object indexedValue = indexedValues.get(wme);
+		
+		if (value == null ? indexedValue != null : !value.equals(indexedValue)) {
+			delete(indexedValue, wme);
+			indexedValues.put(wme, value);
+			insert(value, wme);
+		}
+	}
+
+	/**
+	 * Adds a WME to the index under the given attribute value. 
+	 */
+	abstract void insert(Object value, WME wme);
+
+	/**
+	 * Removes a WME indexed under the given attribute value. 
+	 */
+	abstract void delete(Object value, WME wme);
+}
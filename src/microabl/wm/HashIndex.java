@@ -0,0 +1,56 @@
+package microabl.wm;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+/**
+ * Indexes WMEs by attribute value for equality tests. 
+ */
+class HashIndex extends AttributeIndex {
+
+	/** WMEs by attribute value */ 
+	private HashMap<Object, HashSet<WME>> wmes = new HashMap<Object, HashSet<WME>>();
+
+	HashIndex(AttributeAccessor accessor) {
+		super(accessor);
+	}
+
+	/**
+	 * Returns the WMEs with an attribute value equal to the given value. 
+	 */
+	Set<WME> get(Object value) {
+		HashSet<WME> matching = wmes.get(value);
+		return (matching != null) ? matching : Collections.<WME>emptySet();
+	}
+
+	/**
+	 * Returns the number of distinct attribute values in the index. 
+	 */
+	int getNumValues() {
+		return wmes.size();
+	}
+
+	void insert(Object value, WME wme) {
+		HashSet<WME> matching = wmes.get(value);
+		
+		if (matching == null) {
+			matching = new HashSet<WME>();
+			wmes.put(value, matching);
+		}
+		
+		matching.add(wme);
+	}
+
+	void delete(Object value, WME wme) {
+		HashSet<WME> matching = wmes.get(value);
+		
+		if (matching != null) {
+			matching.remove(wme);
+			
+			if (matching.isEmpty()) {
+				wmes.remove(value);
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package microabl.wm;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.TreeMap;
+/**
+ * Indexes WMEs by numeric attribute value for range tests (gt, gte, lt, lte). 
+ * 
+ * Integer and double attribute values are indexed as doubles. WMEs with other attribute values
+ * are not indexed, since numeric comparisons never succeed for them. 
+ */
+class RangeIndex extends AttributeIndex {
+
+	/** WMEs by attribute value, in ascending order */ 
+	private TreeMap<Double, HashSet<WME>> wmes = new TreeMap<Double, HashSet<WME>>();
+
+	RangeIndex(AttributeAccessor accessor) {
+		super(accessor);
+	}
+
+	/**
+	 * Returns the WMEs with an attribute value within the given bounds. 
+	 */
+	ArrayList<WME> get(double lower, boolean lowerInclusive, double upper, boolean upperInclusive) {
+		ArrayList<WME> matching = new ArrayList<WME>();
+		
+		if (Double.isNaN(lower) || Double.isNaN(upper) || lower > upper || (lower == upper && !(lowerInclusive && upperInclusive))) {
+			return matching;
+		}
+		
+		for (HashSet<WME> bucket : wmes.subMap(toKey(lower), lowerInclusive, toKey(upper), upperInclusive).values()) {
+			matching.addAll(bucket);
+		}
+		
+		return matching;
+	}
+
+	void insert(Object value, WME wme) {
+		if (!isNumber(value)) {
+			return;
+		}
+		
+		Double key = toKey(((Number)value).doubleValue());
+		HashSet<WME> matching = wmes.get(key);
+		
+		if (matching == null) {
+			matching = new HashSet<WME>();
+			wmes.put(key, matching);
+		}
+		
+		matching.add(wme);
+	}
+
+	void delete(Object value, WME wme) {
+		if (!isNumber(value)) {
+			return;
+		}
+
+		Double key = toKey(((Number)value).doubleValue());
+		HashSet<WME> matching = wmes.get(key);
+		
+		if (matching != null) {
+			matching.remove(wme);
+			
+			if (matching.isEmpty()) {
+				wmes.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Only int and double values are supported by numeric comparisons. 
+	 */
+	private static boolean isNumber(Object value) {
+		return (value instanceof Integer) || (value instanceof Double);
+	}
+
+	/**
+	 * Converts a value to an index key. Negative zero is stored as zero, since the two are equal
+	 * in numeric comparisons. 
+	 */
+	private static Double toKey(double value) {
+		return (value == 0.0) ? 0.0 : value;
+	}
+}
@@ -1,11 +1,43 @@
 package microabl.wm;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
 import microabl.abt.ABTRuntimeError;
 /**
  * Base class for objects added to working memory. 
+ * 
+ * Attribute getters are resolved once for each WME class and attribute name, and bound to a 
+ * generated AttributeAccessor. Reading an attribute does not use reflection. 
+ * 
+ * WMEs are observable by opting in: a WME whose setters invoke changed() counts its modifications 
+ * (see getVersion), and reports them to each working memory that contains it, which updates its
+ * attribute indexes and notifies its listeners as if updateWME had been invoked. A WME can be 
+ * shared by the working memories of several agents, in which case it must only be modified 
+ * while none of the agents are being updated. 
  */
 public class WME {
 
+	/** number of times the WME was modified (see changed) */ 
+	private long version; 
+
+	/** working memories that contain the WME (null if the WME is not in working memory) */ 
+	private ArrayList<WorkingMemory> workingMemories; 
+
+	/** attribute accessors, cached by WME class and attribute name */ 
+	private static final ClassValue<ConcurrentHashMap<String, AttributeAccessor>> accessors = new ClassValue<ConcurrentHashMap<String, AttributeAccessor>>() {
+		protected ConcurrentHashMap<String, AttributeAccessor> computeValue(Class<?> wmeClass) {
+			return new ConcurrentHashMap<String, AttributeAccessor>();
+		}
+	};
+
 	/**
 	 * Invokes the getter for the given attribute. 
 	 * Note: Uses Java bean naming conventions. (e.g. "name" invokes getName() ) 
@@ -15,15 +47,162 @@ public class WME {
 	 * @return the getter result
 	 */
 	public Object getAttribute(String attribute) {
-		try { 
-			if (attribute.length() == 0) {
-				throw new ABTRuntimeError("Invalid attribute");
+		return getAccessor(getClass(), attribute).get(this);
+	}  
+
+	/**
+	 * Records a modification of the WME's attributes. Subclasses invoke this method after an 
+	 * attribute is modified, so that working memory indexes, caches, and incremental matchers are 
+	 * updated without the caller invoking WorkingMemory.updateWME. 
+	 */
+	protected void changed() {
+		version++;
+		
+		if (workingMemories != null) {
+			for (int index=0; index<workingMemories.size(); index++) {
+				workingMemories.get(index).updateWME(this);
+			}
+		}
+	}
+
+	/**
+	 * Records that the WME was added to a working memory. 
+	 */
+	void addedTo(WorkingMemory workingMemory) {
+		if (workingMemories == null) {
+			workingMemories = new ArrayList<WorkingMemory>(1);
+		}
+		
+		workingMemories.add(workingMemory);
+	}
+
+	/**
+	 * Records that the WME was removed from a working memory. 
+	 */
+	void removedFrom(WorkingMemory workingMemory) {
+		if (workingMemories != null) {
+			workingMemories.remove(workingMemory);
+			
+			if (workingMemories.isEmpty()) {
+				workingMemories = null;
 			}
-  
-			return getClass().getMethod("get" + attribute.substring(0, 1).toUpperCase() + attribute.substring(1)).invoke(this); 
+		}
+	}
+
+	/**
+	 * Returns the number of times the WME reported a modification with changed(). 
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns an accessor for the given attribute of a WME class. Accessors are created on 
+	 * first use and cached. 
+	 * 
+	 * Throw an error if there is not a getter for the specified attribute. 
+	 */
+	public static AttributeAccessor getAccessor(Class<?> wmeClass, String attribute) {
+		ConcurrentHashMap<String, AttributeAccessor> classAccessors = accessors.get(wmeClass);
+		AttributeAccessor accessor = classAccessors.get(attribute);
+		
+		if (accessor == null) {
+			accessor = createAccessor(wmeClass, attribute);
+			classAccessors.putIfAbsent(attribute, accessor);
+		}
+		
+		return accessor;
+	}
+
+	/**
+	 * Returns an accessor for an attribute of a WME class. If the WME class does not define 
+	 * the attribute, then the returned accessor looks up the attribute of each WME instance, 
+	 * which supports attributes defined only by subclasses. 
+	 */
+	public static AttributeAccessor getAccessorOrLookup(Class<?> wmeClass, final String attribute) {
+		try {
+			return getAccessor(wmeClass, attribute);
+		}
+		catch (ABTRuntimeError e) {
+			return new AttributeAccessor() {
+				public Object get(WME wme) {
+					return wme.getAttribute(attribute);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Resolves the getter for an attribute and binds it to an accessor. 
+	 */
+	private static AttributeAccessor createAccessor(Class<?> wmeClass, String attribute) {
+		if (attribute.length() == 0) {
+			throw new ABTRuntimeError("Invalid attribute");
+		}
+
+		Method getter; 
+		try {
+			getter = wmeClass.getMethod("get" + attribute.substring(0, 1).toUpperCase() + attribute.substring(1));
+		}
+		catch (NoSuchMethodException e) {
+			throw new ABTRuntimeError("Invalid attribute: '" + attribute + "' for WME: " + wmeClass.getSimpleName());
+		}
+
+		// generate an accessor class that invokes the getter directly 
+		if (!Modifier.isStatic(getter.getModifiers())) {
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.lookup();
+				MethodHandle handle = lookup.unreflect(getter);
+				CallSite site = LambdaMetafactory.metafactory(lookup, "get", 
+						MethodType.methodType(AttributeAccessor.class), 
+						MethodType.methodType(Object.class, WME.class), 
+						handle, 
+						MethodType.methodType(Object.class, getter.getDeclaringClass()));
+				
+				return (AttributeAccessor)site.getTarget().invoke();
+			}
+			catch (Throwable e) {
+				// the getter is not accessible to generated classes, use a method handle  
+			}
+		}
+		
+		return createHandleAccessor(wmeClass, attribute, getter);
+	}
+
+	/**
+	 * Binds a getter that cannot be invoked by a generated class to a method handle accessor. 
+	 */
+	private static AttributeAccessor createHandleAccessor(Class<?> wmeClass, final String attribute, Method getter) {
+		final MethodHandle handle; 
+		try {
+			getter.setAccessible(true);
+			MethodHandle getterHandle = MethodHandles.lookup().unreflect(getter);
+			
+			if (Modifier.isStatic(getter.getModifiers())) {
+				getterHandle = MethodHandles.dropArguments(getterHandle, 0, WME.class);
+			}
+			
+			handle = getterHandle.asType(MethodType.methodType(Object.class, WME.class));
 		}
 		catch (Exception e) {
-			throw new ABTRuntimeError("Invalid attribute: '" + attribute + "' for WME: " + this.getClass().getSimpleName());
+			throw new ABTRuntimeError("Invalid attribute: '" + attribute + "' for WME: " + wmeClass.getSimpleName());
 		}
-	}  
+
+		return new AttributeAccessor() {
+			public Object get(WME wme) {
+				try {
+					return handle.invokeExact(wme);
+				}
+				catch (RuntimeException e) {
+					throw e;
+				}
+				catch (Error e) {
+					throw e;
+				}
+				catch (Throwable e) {
+					throw new ABTRuntimeError("Invalid attribute: '" + attribute + "' for WME: " + wme.getClass().getSimpleName());
+				}
+			}
+		};
+	}
 }
@@ -1,14 +1,49 @@
 package microabl.wm;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Set;
 /**
  * Maintains lists of working memory elements (WMEs). 
+ * 
+ * WMEs are indexed by class. Optional attribute indexes can be added for WME attributes, which 
+ * allow conditions to retrieve candidate WMEs without scanning all WMEs of the class: 
+ *   Hash indexes - retrieve WMEs with an attribute equal to a value (Equals and eq tests)
+ *   Range indexes - retrieve WMEs with a numeric attribute within bounds (gt, gte, lt, and lte tests)
+ *   
+ * Indexed attribute values are read when a WME is added. If an indexed attribute of a WME in 
+ * working memory is modified, then updateWME must be invoked. 
+ * 
+ * Listeners can be registered to receive notifications when WMEs are added, removed, or updated. 
+ * Working memory is versioned: each change increments the working memory version, and records 
+ * it as the version of the WME's class and superclasses, so caches can detect which classes of 
+ * WMEs changed since they were computed. WMEs that report modifications with WME.changed are 
+ * updated automatically. 
  */
 public class WorkingMemory {
 
 	/** Maintains lists of WMEs indexed by WME class. **/
 	private HashMap<Class<? extends WME>, HashSet<WME>> wmes = new HashMap<Class<? extends WME>, HashSet<WME>>();
+
+	/** Attribute indexes by WME class. **/
+	private HashMap<Class<? extends WME>, ArrayList<AttributeIndex>> indexes = new HashMap<Class<? extends WME>, ArrayList<AttributeIndex>>();
+
+	/** Hash indexes by WME class and attribute name. **/
+	private HashMap<Class<? extends WME>, HashMap<String, HashIndex>> hashIndexes = new HashMap<Class<? extends WME>, HashMap<String, HashIndex>>();
+
+	/** Range indexes by WME class and attribute name. **/
+	private HashMap<Class<? extends WME>, HashMap<String, RangeIndex>> rangeIndexes = new HashMap<Class<? extends WME>, HashMap<String, RangeIndex>>();
+
+	/** Listeners notified of changes to working memory. **/
+	private ArrayList<WorkingMemoryListener> listeners = new ArrayList<WorkingMemoryListener>();
+
+	/** Number of changes to working memory. **/
+	private long version;
+
+	/** Version of the last change to WMEs of each class, including subclasses. **/
+	private HashMap<Class<? extends WME>, long[]> classVersions = new HashMap<Class<? extends WME>, long[]>();
  
 	/**
 	 * Adds a WME to working memory. 
@@ -17,6 +52,7 @@ public class WorkingMemory {
 	 */
 	public void addWME(WME wme) {
 		Class wmeClass = wme.getClass();
+		boolean added = !getWMEs(wmeClass).contains(wme);
 		
 		while (!wmeClass.equals(WME.class)) {
 			if (!wmes.containsKey(wmeClass)) {
@@ -24,10 +60,26 @@ public class WorkingMemory {
 			}
 			
 			wmes.get(wmeClass).add(wme);
+			
+			ArrayList<AttributeIndex> classIndexes = indexes.get(wmeClass);
+			if (classIndexes != null) {
+				for (AttributeIndex index : classIndexes) {
+					index.add(wme);
+				}
+			}
  		
 			// continue to add the WME to super classes until the base WME class is reached. 
 			wmeClass = wmeClass.getSuperclass();
 		}		
+		
+		if (added) {
+			wme.addedTo(this);
+			changed(wme);
+			
+			for (WorkingMemoryListener listener : listeners) {
+				listener.wmeAdded(wme);
+			}
+		}
 	}
 
 	/**
@@ -35,16 +87,111 @@ public class WorkingMemory {
 	 */
 	public void removeWME(WME wme) {
 		Class wmeClass = wme.getClass();
+		boolean removed = getWMEs(wmeClass).contains(wme);
 		 
 		while (!wmeClass.equals(WME.class)) {
 			if (wmes.containsKey(wmeClass)) {
 				wmes.get(wmeClass).remove(wme);
 			}
+			
+			ArrayList<AttributeIndex> classIndexes = indexes.get(wmeClass);
+			if (classIndexes != null) {
+				for (AttributeIndex index : classIndexes) {
+					index.remove(wme);
+				}
+			}
 						
 			wmeClass = wmeClass.getSuperclass();
 		}		
+		
+		if (removed) {
+			wme.removedFrom(this);
+			changed(wme);
+			
+			for (WorkingMemoryListener listener : listeners) {
+				listener.wmeRemoved(wme);
+			}
+		}
 	} 
 
+	/**
+	 * Updates the attribute indexes for a WME in working memory. Must be invoked when an indexed 
+	 * attribute of the WME is modified, or when listeners should be notified of the modification. 
+	 */
+	public void updateWME(WME wme) {
+		Class wmeClass = wme.getClass();
+		if (!getWMEs(wmeClass).contains(wme)) {
+			return;
+		}
+		 
+		while (!wmeClass.equals(WME.class)) {
+			ArrayList<AttributeIndex> classIndexes = indexes.get(wmeClass);
+			if (classIndexes != null) {
+				for (AttributeIndex index : classIndexes) {
+					index.update(wme);
+				}
+			}
+						
+			wmeClass = wmeClass.getSuperclass();
+		}		
+		
+		changed(wme);
+		
+		for (WorkingMemoryListener listener : listeners) {
+			listener.wmeUpdated(wme);
+		}
+	}
+
+	/**
+	 * Increments the working memory version, and records it as the version of the WME's 
+	 * class and superclasses. 
+	 */
+	private void changed(WME wme) {
+		version++;
+		
+		Class wmeClass = wme.getClass();
+		while (!wmeClass.equals(WME.class)) {
+			long[] classVersion = classVersions.get(wmeClass);
+			if (classVersion == null) {
+				classVersion = new long[1];
+				classVersions.put(wmeClass, classVersion);
+			}
+			
+			classVersion[0] = version;
+			wmeClass = wmeClass.getSuperclass();
+		}
+	}
+
+	/**
+	 * Returns the number of changes (additions, removals, and updates) made to working memory. 
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the working memory version of the last change to a WME of the given class or its 
+	 * subclasses, or 0 if no WME of the class has been changed. 
+	 */
+	public long getVersion(Class<? extends WME> wmeClass) {
+		long[] classVersion = classVersions.get(wmeClass);
+		return (classVersion != null) ? classVersion[0] : 0;
+	}
+
+	/**
+	 * Registers a listener for changes to working memory. 
+	 */
+	public void addListener(WorkingMemoryListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a working memory listener. 
+	 */
+	public void removeListener(WorkingMemoryListener listener) {
+		listeners.remove(listener);
+	}
+
 	/**
 	 * Returns all WMEs of the specified class. 
 	 */
@@ -56,6 +203,112 @@ public class WorkingMemory {
 		return wmes.get(wmeClass);
 	} 
 
+	/**
+	 * Adds a hash index for an attribute of a WME class. WMEs already in working memory are
+	 * added to the index. 
+	 * 
+	 * The index covers WMEs of the class and its subclasses. 
+	 */
+	public void addHashIndex(Class<? extends WME> wmeClass, String attribute) {
+		HashMap<String, HashIndex> classIndexes = hashIndexes.get(wmeClass);
+		if (classIndexes == null) {
+			classIndexes = new HashMap<String, HashIndex>();
+			hashIndexes.put(wmeClass, classIndexes);
+		}
+		
+		if (!classIndexes.containsKey(attribute)) {
+			HashIndex index = new HashIndex(WME.getAccessorOrLookup(wmeClass, attribute));
+			addIndex(wmeClass, index);
+			classIndexes.put(attribute, index);
+		}
+	}
+
+	/**
+	 * Adds a range index for a numeric (int or double) attribute of a WME class. WMEs already in
+	 * working memory are added to the index. 
+	 * 
+	 * The index covers WMEs of the class and its subclasses. 
+	 */
+	public void addRangeIndex(Class<? extends WME> wmeClass, String attribute) {
+		HashMap<String, RangeIndex> classIndexes = rangeIndexes.get(wmeClass);
+		if (classIndexes == null) {
+			classIndexes = new HashMap<String, RangeIndex>();
+			rangeIndexes.put(wmeClass, classIndexes);
+		}
+		
+		if (!classIndexes.containsKey(attribute)) {
+			RangeIndex index = new RangeIndex(WME.getAccessorOrLookup(wmeClass, attribute));
+			addIndex(wmeClass, index);
+			classIndexes.put(attribute, index);
+		}
+	}
+
+	/**
+	 * Adds the WMEs of a class to a new index, and maintains the index as WMEs are modified. 
+	 */
+	private void addIndex(Class<? extends WME> wmeClass, AttributeIndex index) {
+		for (WME wme : getWMEs(wmeClass)) {
+			index.add(wme);
+		}
+		
+		if (!indexes.containsKey(wmeClass)) {
+			indexes.put(wmeClass, new ArrayList<AttributeIndex>());
+		}
+		
+		indexes.get(wmeClass).add(index);
+	}
+
+	/**
+	 * Returns the number of distinct values of an attribute of a WME class in the hash index for 
+	 * the attribute, or -1 if the attribute has no hash index. 
+	 */
+	public int getNumValues(Class<? extends WME> wmeClass, String attribute) {
+		HashMap<String, HashIndex> classIndexes = hashIndexes.get(wmeClass);
+		HashIndex index = (classIndexes != null) ? classIndexes.get(attribute) : null;
+		return (index != null) ? index.getNumValues() : -1;
+	}
+
+	/**
+	 * Returns true if there is a hash index for the attribute of the WME class. 
+	 */
+	public boolean hasHashIndex(Class<? extends WME> wmeClass, String attribute) {
+		HashMap<String, HashIndex> classIndexes = hashIndexes.get(wmeClass);
+		return classIndexes != null && classIndexes.containsKey(attribute);
+	}
+
+	/**
+	 * Returns true if there is a range index for the attribute of the WME class. 
+	 */
+	public boolean hasRangeIndex(Class<? extends WME> wmeClass, String attribute) {
+		HashMap<String, RangeIndex> classIndexes = rangeIndexes.get(wmeClass);
+		return classIndexes != null && classIndexes.containsKey(attribute);
+	}
+
+	/**
+	 * Returns the WMEs of the specified class with an attribute value equal to the given value. 
+	 * 
+	 * Returns null if there is no hash index for the attribute. 
+	 */
+	public Set<WME> getWMEs(Class<? extends WME> wmeClass, String attribute, Object value) {
+		HashMap<String, HashIndex> classIndexes = hashIndexes.get(wmeClass);
+		HashIndex index = (classIndexes != null) ? classIndexes.get(attribute) : null;
+		
+		return (index != null) ? index.get(value) : null;
+	}
+
+	/**
+	 * Returns the WMEs of the specified class with a numeric attribute value within the given 
+	 * bounds. Use infinite bounds for open ranges. 
+	 * 
+	 * Returns null if there is no range index for the attribute. 
+	 */
+	public Collection<WME> getWMEs(Class<? extends WME> wmeClass, String attribute, double lower, boolean lowerInclusive, double upper, boolean upperInclusive) {
+		HashMap<String, RangeIndex> classIndexes = rangeIndexes.get(wmeClass);
+		RangeIndex index = (classIndexes != null) ? classIndexes.get(attribute) : null;
+		
+		return (index != null) ? index.get(lower, lowerInclusive, upper, upperInclusive) : null;
+	}
+
 	/**
 	 * Prints everything in working memory. 
 	 */
@@ -0,0 +1,24 @@
+package microabl.wm;
+/**
+ * Receives notifications of changes to working memory. 
+ * 
+ * Listeners are notified after the change has been applied, and only for changes that modify
+ * working memory (e.g. adding a WME that is already in working memory is not reported). 
+ */
+public interface WorkingMemoryListener {
+
+	/**
+	 * Invoked when a WME is added to working memory. 
+	 */
+	void wmeAdded(WME wme);
+
+	/**
+	 * Invoked when a WME is removed from working memory. 
+	 */
+	void wmeRemoved(WME wme);
+
+	/**
+	 * Invoked when the attributes of a WME in working memory are updated (see WorkingMemory.updateWME). 
+	 */
+	void wmeUpdated(WME wme);
+}
@@ -23,7 +23,7 @@ public class TestScheduler implements ActionListener {
 					}
 					catch (Exception e) {}
 					 
-					action.setStatus(NodeStatus.Success);
+					action.complete(true);
 				}
 			}.start();
 		}
@@ -0,0 +1,139 @@
+package microabl;
+
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+
+import microabl.abt.ActionNode;
+import microabl.prototype.BehaviorPrototype;
+import microabl.prototype.ConditionPrototype;
+import microabl.prototype.StepPrototype;
+import microabl.wm.WME;
+
+import org.junit.Test;
+
+public class AgentClockTest {
+
+	public static class ItemWME extends WME {
+	}
+
+	/**
+	 * A clock that only moves when it is set.
+	 */
+	private static class ManualClock extends Clock {
+
+		private long millis;
+
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+
+		public long millis() {
+			return millis;
+		}
+	}
+
+	/**
+	 * Records the executed action.
+	 */
+	private static class CapturingListener implements ActionListener {
+
+		private ActionNode action;
+
+		public void execute(ActionNode action) {
+			this.action = action;
+		}
+
+		public void onUpdate(ActionNode action) {
+		}
+
+		public void abort(ActionNode action) {
+		}
+	}
+
+	/**
+	 * Timers scheduled before the clock is replaced still fire, and cancelling them does not
+	 * disturb timers scheduled with the new clock.
+	 */
+	@Test
+	public void pendingTimersSurviveSetClock() {
+		ArrayList<ConditionPrototype> waitConditions = new ArrayList<ConditionPrototype>();
+		waitConditions.add(ConditionPrototype.createWMECondition(ItemWME.class));
+
+		ArrayList<StepPrototype> steps = new ArrayList<StepPrototype>();
+		steps.add(StepPrototype.createWaitStep(waitConditions).setTimeout(100));
+		steps.add(StepPrototype.createAction("act"));
+
+		ArrayList<BehaviorPrototype> library = new ArrayList<BehaviorPrototype>();
+		library.add(BehaviorPrototype.createParallel(Agent.INITIAL_GOAL).setSteps(steps));
+
+		CapturingListener listener = new CapturingListener();
+		Agent agent = new Agent(library, listener);
+		ManualClock clock = new ManualClock();
+		agent.setClock(clock);
+
+		for (int cycle=0; cycle<5; cycle++) {
+			agent.update();
+		}
+
+		ManualClock newClock = new ManualClock();
+		agent.setClock(newClock);
+		agent.completeActionAfter(listener.action, 100);
+
+		agent.getWorkingMemory().addWME(new ItemWME());
+		for (int cycle=0; cycle<5; cycle++) {
+			agent.update();
+		}
+
+		newClock.millis = 200;
+		for (int cycle=0; cycle<5; cycle++) {
+			agent.update();
+		}
+
+		assertTrue(listener.action.isSuccess());
+	}
+
+	/**
+	 * A wait step timeout scheduled before the clock is replaced fails the step.
+	 */
+	@Test
+	public void waitStepTimeoutFiresAfterSetClock() {
+		ArrayList<ConditionPrototype> waitConditions = new ArrayList<ConditionPrototype>();
+		waitConditions.add(ConditionPrototype.createWMECondition(ItemWME.class));
+
+		ArrayList<StepPrototype> steps = new ArrayList<StepPrototype>();
+		steps.add(StepPrototype.createWaitStep(waitConditions).setTimeout(100));
+
+		ArrayList<BehaviorPrototype> library = new ArrayList<BehaviorPrototype>();
+		library.add(BehaviorPrototype.createSequential(Agent.INITIAL_GOAL).setSteps(steps));
+
+		Agent agent = new Agent(library, new CapturingListener());
+		agent.setClock(new ManualClock());
+
+		for (int cycle=0; cycle<5; cycle++) {
+			agent.update();
+		}
+
+		ManualClock newClock = new ManualClock();
+		agent.setClock(newClock);
+		newClock.millis = 200;
+
+		for (int cycle=0; cycle<5; cycle++) {
+			agent.update();
+		}
+
+		assertTrue(!agent.getRoots().iterator().hasNext());
+	}
+}
@@ -0,0 +1,105 @@
+package microabl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+
+import microabl.abt.ABTRuntimeError;
+import microabl.abt.ActionNode;
+import microabl.prototype.BehaviorPrototype;
+import microabl.prototype.MentalAct;
+import microabl.prototype.StepPrototype;
+import microabl.prototype.VariableFrame;
+
+import org.junit.Test;
+
+public class AgentSchedulerTest {
+
+	private static class NoActions implements ActionListener {
+
+		public void execute(ActionNode action) {
+		}
+
+		public void onUpdate(ActionNode action) {
+		}
+
+		public void abort(ActionNode action) {
+		}
+	}
+
+	/**
+	 * Creates an agent whose initial behavior records that it ran.
+	 */
+	private static Agent createAgent(final boolean[] ran) {
+		ArrayList<StepPrototype> steps = new ArrayList<StepPrototype>();
+		steps.add(StepPrototype.createMentalAct(new MentalAct() {
+			public Object execute(VariableFrame variables) {
+				ran[0] = true;
+				return null;
+			}
+		}));
+
+		ArrayList<BehaviorPrototype> library = new ArrayList<BehaviorPrototype>();
+		library.add(BehaviorPrototype.createSequential(Agent.INITIAL_GOAL).setSteps(steps));
+		return new Agent(library, new NoActions());
+	}
+
+	/**
+	 * Creates an agent whose initial behavior has no steps, which is an error.
+	 */
+	private static Agent createFailingAgent() {
+		ArrayList<BehaviorPrototype> library = new ArrayList<BehaviorPrototype>();
+		library.add(BehaviorPrototype.createParallel(Agent.INITIAL_GOAL).setSteps(new ArrayList<StepPrototype>()));
+		return new Agent(library, new NoActions());
+	}
+
+	@Test
+	public void errorsAreRethrownAfterTheTick() {
+		AgentScheduler scheduler = new AgentScheduler();
+		boolean[] ran = new boolean[1];
+
+		try {
+			scheduler.addAgent(createFailingAgent(), 10);
+			scheduler.addAgent(createAgent(ran), 10);
+			scheduler.addAgent(createFailingAgent(), 10);
+
+			try {
+				scheduler.tick();
+				fail("expected an error");
+			}
+			catch (ABTRuntimeError e) {
+				assertEquals(1, e.getSuppressed().length);
+			}
+
+			assertTrue(ran[0]);
+		}
+		finally {
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	public void scheduledAgentIsOnlyUpdatedByItsScheduler() {
+		AgentScheduler scheduler = new AgentScheduler();
+		Agent agent = createAgent(new boolean[1]);
+
+		try {
+			scheduler.addAgent(agent);
+
+			try {
+				agent.update();
+				fail("expected an error");
+			}
+			catch (ABTRuntimeError e) {
+			}
+
+			scheduler.removeAgent(agent);
+			agent.update();
+		}
+		finally {
+			scheduler.shutdown();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package microabl;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import microabl.abt.ActionNode;
+import microabl.prototype.BehaviorPrototype;
+import microabl.prototype.ConditionPrototype;
+import microabl.prototype.ConditionPrototype.Comparison;
+import microabl.prototype.MentalAct;
+import microabl.prototype.StepPrototype;
+import microabl.prototype.Variable;
+import microabl.prototype.VariableFrame;
+import microabl.wm.WME;
+
+import org.junit.Test;
+
+public class WaitStepTest {
+
+	public static class TargetWME extends WME {
+
+		private int value;
+
+		public TargetWME(int value) {
+			this.value = value;
+		}
+
+		public int getValue() {
+			return value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+			changed();
+		}
+	}
+
+	public static class ItemWME extends WME {
+
+		private int value;
+
+		public ItemWME(int value) {
+			this.value = value;
+		}
+
+		public int getValue() {
+			return value;
+		}
+	}
+
+	private static class NoActions implements ActionListener {
+
+		public void execute(ActionNode action) {
+		}
+
+		public void onUpdate(ActionNode action) {
+		}
+
+		public void abort(ActionNode action) {
+		}
+	}
+
+	/**
+	 * A wait step testing a variable bound by the behavior's context conditions completes when
+	 * the binding changes, even though no WME referenced by the wait conditions changed.
+	 */
+	@Test
+	public void waitStepSeesVariablesBoundByContextConditions() {
+		final boolean[] done = new boolean[1];
+
+		ArrayList<ConditionPrototype> contextConditions = new ArrayList<ConditionPrototype>();
+		contextConditions.add(ConditionPrototype.createWMECondition(TargetWME.class).addBinding("value", "target"));
+
+		ArrayList<ConditionPrototype> waitConditions = new ArrayList<ConditionPrototype>();
+		waitConditions.add(ConditionPrototype.createWMECondition(ItemWME.class).addTest("value", Comparison.Equals, new Variable("target")));
+
+		ArrayList<StepPrototype> steps = new ArrayList<StepPrototype>();
+		steps.add(StepPrototype.createWaitStep(waitConditions));
+		steps.add(StepPrototype.createMentalAct(new MentalAct() {
+			public Object execute(VariableFrame variables) {
+				done[0] = true;
+				return null;
+			}
+		}));
+
+		ArrayList<BehaviorPrototype> library = new ArrayList<BehaviorPrototype>();
+		library.add(BehaviorPrototype.createSequential(Agent.INITIAL_GOAL).setContextConditions(contextConditions).setSteps(steps));
+
+		Agent agent = new Agent(library, new NoActions());
+		agent.setIncrementalMatching(true);
+
+		TargetWME target = new TargetWME(1);
+		agent.getWorkingMemory().addWME(target);
+		agent.getWorkingMemory().addWME(new ItemWME(2));
+
+		for (int cycle=0; cycle<10; cycle++) {
+			agent.update();
+		}
+
+		target.setValue(2);
+
+		for (int cycle=0; cycle<10 && !done[0]; cycle++) {
+			agent.update();
+		}
+
+		assertTrue(done[0]);
+	}
+}
@@ -0,0 +1,30 @@
+package microabl.prototype;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MethodInvokerTest {
+
+	public static String describe(String text, Integer count) {
+		return text + ":" + count;
+	}
+
+	public static int twice(int value) {
+		return value * 2;
+	}
+
+	@Test
+	public void nullArgumentMatchesReferenceParameter() throws Throwable {
+		MethodInvoker invoker = new MethodInvoker(MethodInvokerTest.class, "describe");
+
+		assertEquals("a:1", invoker.invoke(new Object[] { "a", 1 }));
+		assertEquals("null:1", invoker.invoke(new Object[] { null, 1 }));
+		assertEquals("b:null", invoker.invoke(new Object[] { "b", null }));
+	}
+
+	@Test(expected = NoSuchMethodException.class)
+	public void nullArgumentDoesNotMatchPrimitiveParameter() throws Throwable {
+		new MethodInvoker(MethodInvokerTest.class, "twice").invoke(new Object[] { null });
+	}
+}
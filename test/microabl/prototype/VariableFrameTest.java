@@ -0,0 +1,24 @@
+package microabl.prototype;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class VariableFrameTest {
+
+	@Test
+	public void variableMissingFromLayoutIsUnbound() {
+		VariableLayout layout = new VariableLayout();
+		layout.addVariable("x");
+
+		VariableFrame frame = new VariableFrame(layout);
+		frame.set("x", 1);
+
+		Variable missing = new Variable("y");
+		assertNull(frame.get(missing));
+		assertFalse(frame.isBound(missing));
+		assertEquals(1, frame.get(new Variable("x")));
+	}
+}
@@ -0,0 +1,58 @@
+package microabl.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TimerWheelTest {
+
+	private static final Runnable NoTask = new Runnable() {
+		public void run() {
+		}
+	};
+
+	@Test
+	public void cancelIgnoresTimersOfOtherWheels() {
+		TimerWheel first = new TimerWheel(0);
+		TimerWheel second = new TimerWheel(0);
+
+		Timer foreign = first.schedule(10, NoTask);
+		Timer own = second.schedule(10, NoTask);
+
+		assertFalse(second.cancel(foreign));
+		assertEquals(1, second.size());
+		assertTrue(foreign.isPending());
+
+		assertTrue(second.cancel(own));
+		assertEquals(0, second.size());
+	}
+
+	@Test
+	public void movedTimersKeepTheirDeadlines() {
+		final int[] runs = new int[1];
+		Runnable task = new Runnable() {
+			public void run() {
+				runs[0]++;
+			}
+		};
+
+		TimerWheel first = new TimerWheel(0);
+		first.schedule(100, task);
+		Timer cancelled = first.schedule(100, task);
+
+		TimerWheel second = new TimerWheel(50);
+		first.moveTo(second);
+		assertEquals(0, first.size());
+		assertEquals(2, second.size());
+
+		assertFalse(first.cancel(cancelled));
+		assertTrue(second.cancel(cancelled));
+
+		second.advance(99);
+		assertEquals(0, runs[0]);
+		second.advance(100);
+		assertEquals(1, runs[0]);
+	}
+}
@@ -0,0 +1,96 @@
+package microabl.wm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class WorkingMemoryTest {
+
+	/**
+	 * WME that reports modifications with changed().
+	 */
+	public static class PositionWME extends WME {
+
+		private int x;
+
+		public int getX() {
+			return x;
+		}
+
+		public void setX(int x) {
+			this.x = x;
+			changed();
+		}
+	}
+
+	/**
+	 * Counts update notifications.
+	 */
+	private static class UpdateCounter implements WorkingMemoryListener {
+
+		private int updates;
+
+		public void wmeAdded(WME wme) {
+		}
+
+		public void wmeRemoved(WME wme) {
+		}
+
+		public void wmeUpdated(WME wme) {
+			updates++;
+		}
+	}
+
+	@Test
+	public void changedUpdatesEveryContainingMemory() {
+		WorkingMemory first = new WorkingMemory();
+		WorkingMemory second = new WorkingMemory();
+		first.addHashIndex(PositionWME.class, "x");
+		second.addHashIndex(PositionWME.class, "x");
+
+		UpdateCounter firstCounter = new UpdateCounter();
+		UpdateCounter secondCounter = new UpdateCounter();
+		first.addListener(firstCounter);
+		second.addListener(secondCounter);
+
+		PositionWME wme = new PositionWME();
+		first.addWME(wme);
+		second.addWME(wme);
+		long firstVersion = first.getVersion(PositionWME.class);
+		long secondVersion = second.getVersion(PositionWME.class);
+
+		wme.setX(5);
+
+		for (WorkingMemory workingMemory : new WorkingMemory[] { first, second }) {
+			assertTrue(workingMemory.getWMEs(PositionWME.class, "x", 5).contains(wme));
+			assertTrue(workingMemory.getWMEs(PositionWME.class, "x", 0).isEmpty());
+		}
+
+		assertEquals(1, firstCounter.updates);
+		assertEquals(1, secondCounter.updates);
+		assertTrue(first.getVersion(PositionWME.class) > firstVersion);
+		assertTrue(second.getVersion(PositionWME.class) > secondVersion);
+	}
+
+	@Test
+	public void changedSkipsMemoriesTheWMEWasRemovedFrom() {
+		WorkingMemory first = new WorkingMemory();
+		WorkingMemory second = new WorkingMemory();
+
+		UpdateCounter firstCounter = new UpdateCounter();
+		UpdateCounter secondCounter = new UpdateCounter();
+		first.addListener(firstCounter);
+		second.addListener(secondCounter);
+
+		PositionWME wme = new PositionWME();
+		first.addWME(wme);
+		second.addWME(wme);
+		first.removeWME(wme);
+
+		wme.setX(5);
+
+		assertEquals(0, firstCounter.updates);
+		assertEquals(1, secondCounter.updates);
+	}
+}